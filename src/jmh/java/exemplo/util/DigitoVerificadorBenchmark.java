@@ -0,0 +1,148 @@
+package exemplo.util;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das classes de dígito verificador.
+ * Mede, para cada classe derivada de {@link DigitoVerificador}, os construtores
+ * com valor <code>String</code>, <code>long</code> e <code>BigInteger</code>,
+ * <code>getValorString(true)</code>, <code>getValorLong(true)</code> e
+ * <code>isValido</code>, além do caminho primitivo de {@link CalculadoraDV}.
+ * Executar com o profile <code>benchmark</code> (ver pom.xml), que ativa o
+ * profiler de GC para medir as alocações por operação (<code>gc.alloc.rate.norm</code>).
+ *
+ * @author Vitor Yudi Hansen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigitoVerificadorBenchmark {
+
+    private static final int NUM_VALORES = 1024;
+
+    @Param({"DVModulo10", "DVModulo11", "DVModulo11CPF", "DigitoVerificadorCPF", "DigitoVerificadorCNPJ"})
+    public String esquema;
+
+    private long[] bases;
+    private String[] basesString;
+    private BigInteger[] basesBigInt;
+    private DigitoVerificador[] instancias;
+    private int[] digitos;
+    private CalculadoraDV calculadora;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void inicializa() {
+        long limite = esquema.equals("DigitoVerificadorCNPJ") ? 1000000000000L
+                : esquema.equals("DigitoVerificadorCPF") ? 1000000000L : 10000000000L;
+        Random r = new Random(42);
+        bases = new long[NUM_VALORES];
+        basesString = new String[NUM_VALORES];
+        basesBigInt = new BigInteger[NUM_VALORES];
+        instancias = new DigitoVerificador[NUM_VALORES];
+        digitos = new int[NUM_VALORES];
+        for (int k = 0; k < NUM_VALORES; k++) {
+            bases[k] = (long) (r.nextDouble() * limite);
+            basesString[k] = String.valueOf(bases[k]);
+            basesBigInt[k] = BigInteger.valueOf(bases[k]);
+            instancias[k] = cria(bases[k]);
+            digitos[k] = instancias[k].getDigito();
+        }
+        calculadora = instancias[0].getCalculadora();
+    }
+
+    private DigitoVerificador cria(long valor) {
+        switch (esquema) {
+            case "DVModulo10": return new DVModulo10(valor);
+            case "DVModulo11": return new DVModulo11(valor);
+            case "DVModulo11CPF": return new DVModulo11CPF(valor);
+            case "DigitoVerificadorCPF": return new DigitoVerificadorCPF(valor);
+            case "DigitoVerificadorCNPJ": return new DigitoVerificadorCNPJ(valor);
+            default: throw new IllegalArgumentException(esquema);
+        }
+    }
+
+    private DigitoVerificador cria(String valor) {
+        switch (esquema) {
+            case "DVModulo10": return new DVModulo10(valor);
+            case "DVModulo11": return new DVModulo11(valor);
+            case "DVModulo11CPF": return new DVModulo11CPF(valor);
+            case "DigitoVerificadorCPF": return new DigitoVerificadorCPF(valor);
+            case "DigitoVerificadorCNPJ": return new DigitoVerificadorCNPJ(valor);
+            default: throw new IllegalArgumentException(esquema);
+        }
+    }
+
+    private DigitoVerificador cria(BigInteger valor) {
+        switch (esquema) {
+            case "DVModulo10": return new DVModulo10(valor);
+            case "DVModulo11": return new DVModulo11(valor);
+            case "DVModulo11CPF": return new DVModulo11CPF(valor);
+            case "DigitoVerificadorCPF": return new DigitoVerificadorCPF(valor);
+            case "DigitoVerificadorCNPJ": return new DigitoVerificadorCNPJ(valor);
+            default: throw new IllegalArgumentException(esquema);
+        }
+    }
+
+    private int proximo() {
+        return i = (i + 1) & (NUM_VALORES - 1);
+    }
+
+    @Benchmark
+    public int construtorString() {
+        return cria(basesString[proximo()]).getDigito();
+    }
+
+    @Benchmark
+    public int construtorLong() {
+        return cria(bases[proximo()]).getDigito();
+    }
+
+    @Benchmark
+    public int construtorBigInteger() {
+        return cria(basesBigInt[proximo()]).getDigito();
+    }
+
+    @Benchmark
+    public String getValorStringComDV() {
+        return instancias[proximo()].getValorString(true);
+    }
+
+    @Benchmark
+    public long getValorLongComDV() {
+        return instancias[proximo()].getValorLong(true);
+    }
+
+    @Benchmark
+    public boolean isValido() {
+        int k = proximo();
+        return instancias[k].isValido(digitos[k]);
+    }
+
+    @Benchmark
+    public int calculadoraLong() {
+        return calculadora.calcula(bases[proximo()]);
+    }
+
+    @Benchmark
+    public int calculadoraString() {
+        return calculadora.calcula(basesString[proximo()]);
+    }
+}
@@ -0,0 +1,132 @@
+package inscricao.faces.convert;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks dos conversores de campos com máscara.
+ * Compara a leitura e a formatação anteriores (<code>String.replace</code> +
+ * <code>valueOf</code> e <code>String.format</code>), marcadas como
+ * <code>legado</code>, com as dos conversores atuais. Executar com o profile
+ * <code>benchmark</code> (ver pom.xml); o profiler de GC mostra as alocações
+ * por operação (<code>gc.alloc.rate.norm</code>).
+ *
+ * @author Vitor Yudi Hansen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversoresBenchmark {
+
+    private static final int NUM_VALORES = 1024;
+
+    private final CPFConverter cpfConverter = new CPFConverter();
+    private final CEPConverter cepConverter = new CEPConverter();
+    private final FoneConverter foneConverter = new FoneConverter();
+    private final CNPJConverter cnpjConverter = new CNPJConverter();
+
+    private Long[] cpfs;
+    private String[] cpfsString;
+    private Integer[] ceps;
+    private String[] cepsString;
+    private String[] fones;
+    private String[] fonesString;
+    private String[] cnpjs;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void inicializa() {
+        Random r = new Random(42);
+        cpfs = new Long[NUM_VALORES];
+        cpfsString = new String[NUM_VALORES];
+        ceps = new Integer[NUM_VALORES];
+        cepsString = new String[NUM_VALORES];
+        fones = new String[NUM_VALORES];
+        fonesString = new String[NUM_VALORES];
+        cnpjs = new String[NUM_VALORES];
+        for (int k = 0; k < NUM_VALORES; k++) {
+            cpfs[k] = (long) (r.nextDouble() * 99999999999L);
+            cpfsString[k] = String.format("%09d-%02d", cpfs[k] / 100, cpfs[k] % 100);
+            ceps[k] = r.nextInt(100000000);
+            cepsString[k] = String.format("%05d-%03d", ceps[k] / 1000, ceps[k] % 1000);
+            fones[k] = String.format("41%08d", r.nextInt(100000000));
+            fonesString[k] = String.format("(%s) %s-%s", fones[k].substring(0, 2), fones[k].substring(2, 6), fones[k].substring(6));
+            cnpjs[k] = String.format("%014d", (long) (r.nextDouble() * 99999999999999L));
+        }
+    }
+
+    private int proximo() {
+        return i = (i + 1) & (NUM_VALORES - 1);
+    }
+
+    @Benchmark
+    public Object cpfLeituraLegado() {
+        return Long.valueOf(cpfsString[proximo()].replace("-", ""));
+    }
+
+    @Benchmark
+    public Object cpfLeitura() {
+        return cpfConverter.getAsObject(null, null, cpfsString[proximo()]);
+    }
+
+    @Benchmark
+    public String cpfFormatacaoLegado() {
+        Long cpf = cpfs[proximo()];
+        return String.format("%09d-%02d", cpf / 100, cpf % 100);
+    }
+
+    @Benchmark
+    public String cpfFormatacao() {
+        return cpfConverter.getAsString(null, null, cpfs[proximo()]);
+    }
+
+    @Benchmark
+    public Object cepLeituraLegado() {
+        return Integer.valueOf(cepsString[proximo()].replace("-", ""));
+    }
+
+    @Benchmark
+    public Object cepLeitura() {
+        return cepConverter.getAsObject(null, null, cepsString[proximo()]);
+    }
+
+    @Benchmark
+    public String cepFormatacaoLegado() {
+        Integer cep = ceps[proximo()];
+        return String.format("%05d-%03d", cep / 1000, cep % 1000);
+    }
+
+    @Benchmark
+    public String cepFormatacao() {
+        return cepConverter.getAsString(null, null, ceps[proximo()]);
+    }
+
+    @Benchmark
+    public Object foneLeitura() {
+        return foneConverter.getAsObject(null, null, fonesString[proximo()]);
+    }
+
+    @Benchmark
+    public String foneFormatacao() {
+        return foneConverter.getAsString(null, null, fones[proximo()]);
+    }
+
+    @Benchmark
+    public String cnpjFormatacao() {
+        return cnpjConverter.getAsString(null, null, cnpjs[proximo()]);
+    }
+}
@@ -0,0 +1,41 @@
+package exemplo.persistence;
+
+import exemplo.persistence.controller.JpaController;
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * Abre uma unidade de trabalho por requisição: os controladores usados
+ * durante a requisição compartilham um único <code>EntityManager</code>
+ * (e o seu cache de primeiro nível), aberto somente se algum deles acessar
+ * o banco e fechado ao fim da requisição.
+ *
+ * @author Vitor Yudi Hansen
+ * @see JpaController#iniciaUnidadeTrabalho()
+ */
+public class UnidadeTrabalhoFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        JpaController.iniciaUnidadeTrabalho();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            JpaController.encerraUnidadeTrabalho();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
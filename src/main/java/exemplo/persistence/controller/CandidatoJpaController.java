@@ -0,0 +1,554 @@
+package exemplo.persistence.controller;
+
+import inscricao.persistence.CandidatoResumo;
+import inscricao.persistence.FiltroCandidatos;
+import inscricao.persistence.entity.Candidato;
+import inscricao.persistence.entity.Idioma;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import javax.persistence.EntityManager;
+import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+
+/**
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class CandidatoJpaController extends JpaController {
+
+    /**
+     * Recebe as linhas de {@link #percorreCandidatos(Linha)}.
+     */
+    public interface Linha {
+        /**
+         * Chamado para cada candidato, na ordem do CPF.
+         * @param colunas Os valores, na ordem de {@link #COLUNAS}
+         * @throws IOException se a linha não puder ser processada
+         */
+        void registro(Object[] colunas) throws IOException;
+    }
+
+    /**
+     * As colunas de {@link #percorreCandidatos(Linha)}; o idioma é o código.
+     */
+    public static final String[] COLUNAS = {"cpf", "rg", "nome", "instituicao", "programa", "endereco",
+        "bairro", "cidade", "estado", "cep", "fone", "celular", "email", "idioma", "referencia", "datahora"};
+
+    private static final String HQL_CANDIDATOS = "SELECT c.cpf, c.rg, c.nome, c.instituicao, c.programa,"
+            + " c.endereco, c.bairro, c.cidade, c.estado, c.cep, c.fone, c.celular, c.email,"
+            + " c.idioma.codigo, c.referencia, c.dataHora FROM Candidato c ORDER BY c.cpf";
+
+    /** Linhas lidas do banco por vez em {@link #percorreCPFs(LongConsumer)}. */
+    public static final int TAMANHO_BLOCO_LEITURA = 5000;
+
+    /**
+     * Inserção que ignora CPFs já cadastrados (PostgreSQL 9.5 ou superior).
+     * A coluna <code>datahora</code> recebe o valor padrão da tabela.
+     */
+    private static final String SQL_INSERE_SE_AUSENTE =
+            "INSERT INTO candidato (" + Candidato.COLUNAS_INSERCAO + ")"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (cpf) DO NOTHING RETURNING cpf";
+
+    private static final String SQL_INSERE =
+            "INSERT INTO candidato (" + Candidato.COLUNAS_INSERCAO + ")"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public CandidatoJpaController() {
+    }
+
+    public Candidato findCandidato(Long cpf) {
+        EntityManager em = getEntityManager();
+        try {
+            return em.find(Candidato.class, cpf);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Insere o candidato se o CPF ainda não estiver cadastrado, com um único
+     * comando <code>INSERT ... ON CONFLICT DO NOTHING RETURNING</code>: a
+     * verificação e a inserção são atômicas, inclusive entre requisições
+     * concorrentes com o mesmo CPF, e custam uma única ida ao banco.
+     * <p>
+     * O comando é nativo, portanto as restrições do Bean Validation da
+     * entidade não são verificadas aqui (os campos já são validados pelo JSF).
+     * @param candidato O candidato
+     * @return <code>true</code> se o candidato foi inserido, <code>false</code>
+     * se o CPF já estava cadastrado
+     */
+    public boolean inscreveSeAusente(final Candidato candidato) {
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            em.getTransaction().begin();
+            boolean inserido = em.unwrap(Session.class).doReturningWork(con -> {
+                try (PreparedStatement ps = con.prepareStatement(SQL_INSERE_SE_AUSENTE)) {
+                    defineColunas(ps, candidato);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+            em.getTransaction().commit();
+            return inserido;
+        } finally {
+            if (em != null) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Insere os candidatos cujo CPF ainda não está cadastrado, em uma única
+     * transação. Os CPFs já existentes são obtidos com uma consulta e os
+     * demais são inseridos em lotes JDBC (<code>hibernate.jdbc.batch_size</code>).
+     * CPFs repetidos na lista são inseridos uma única vez.
+     * <p>
+     * Os candidatos da lista não são alterados nem passam a ser gerenciados:
+     * são persistidas cópias, de modo que, se a transação falhar, a mesma
+     * lista pode ser gravada novamente.
+     * @param candidatos Os candidatos
+     * @return O número de candidatos inseridos
+     */
+    public int persisteNovos(List<Candidato> candidatos) {
+        if (candidatos.isEmpty()) return 0;
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            List<Long> cpfs = new ArrayList<Long>(candidatos.size());
+            for (Candidato c : candidatos) cpfs.add(c.getCpf());
+            Set<Long> existentes = new HashSet<Long>(em.createQuery(
+                    "SELECT c.cpf FROM Candidato c WHERE c.cpf IN :cpfs", Long.class)
+                    .setParameter("cpfs", cpfs).getResultList());
+            em.getTransaction().begin();
+            int inseridos = 0;
+            for (Candidato c : candidatos) {
+                if (!existentes.add(c.getCpf())) continue;
+                Idioma idioma = c.getIdioma() == null ? null
+                        : em.getReference(Idioma.class, c.getIdioma().getCodigo());
+                em.persist(copiaParaPersistir(c, idioma));
+                inseridos++;
+            }
+            em.getTransaction().commit();
+            return inseridos;
+        } finally {
+            if (em != null) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Retorna, dentre os CPFs informados, os que já estão cadastrados.
+     * @param cpfs Os CPFs
+     * @return Os CPFs cadastrados
+     */
+    public Set<Long> cadastrados(Collection<Long> cpfs) {
+        if (cpfs.isEmpty()) return Collections.emptySet();
+        EntityManager em = getEntityManager();
+        try {
+            return new HashSet<Long>(em.createQuery(
+                    "SELECT c.cpf FROM Candidato c WHERE c.cpf IN :cpfs", Long.class)
+                    .setParameter("cpfs", cpfs).getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Copia os campos gravados do candidato, com o idioma informado.
+     */
+    private static Candidato copiaParaPersistir(Candidato c, Idioma idioma) {
+        Candidato n = new Candidato(c.getCpf(), c.getRg(), c.getNome(), c.getInstituicao(), c.getPrograma(),
+                c.getEndereco(), c.getCidade(), c.getEstado(), c.getEmail());
+        n.setBairro(c.getBairro());
+        n.setCep(c.getCep());
+        n.setFone(c.getFone());
+        n.setCelular(c.getCelular());
+        n.setIdioma(idioma);
+        n.setReferencia(c.getReferencia());
+        n.setDataHora(c.getDataHora());
+        return n;
+    }
+
+    /**
+     * Percorre os CPFs de todos os candidatos cadastrados sem carregá-los de
+     * uma vez: a consulta é lida com um cursor, em blocos de
+     * {@link #TAMANHO_BLOCO_LEITURA} linhas. No PostgreSQL o cursor só é
+     * usado dentro de uma transação, por isso a leitura é feita em uma
+     * transação somente de leitura.
+     * @param consumidor Recebe cada CPF
+     * @return O número de CPFs lidos
+     */
+    public int percorreCPFs(LongConsumer consumidor) {
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            em.getTransaction().begin();
+            Session sessao = em.unwrap(Session.class);
+            ScrollableResults cpfs = sessao.createQuery("SELECT c.cpf FROM Candidato c")
+                    .setReadOnly(true)
+                    .setFetchSize(TAMANHO_BLOCO_LEITURA)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            int n = 0;
+            try {
+                while (cpfs.next()) {
+                    consumidor.accept(cpfs.getLong(0));
+                    n++;
+                }
+            } finally {
+                cpfs.close();
+            }
+            em.getTransaction().commit();
+            return n;
+        } finally {
+            if (em != null) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Percorre todos os candidatos com memória constante: a consulta é uma
+     * projeção lida por um cursor em uma sessão sem estado (sem contexto de
+     * persistência nem cache), em blocos de {@link #TAMANHO_BLOCO_LEITURA}
+     * linhas.
+     * @param linha Recebe cada candidato
+     * @return O número de candidatos
+     * @throws IOException se <code>linha</code> falhar; a leitura é interrompida
+     */
+    public int percorreCandidatos(Linha linha) throws IOException {
+        StatelessSession sessao = ((HibernateEntityManagerFactory) getEMFactory())
+                .getSessionFactory().openStatelessSession();
+        try {
+            Transaction tx = sessao.beginTransaction();
+            ScrollableResults candidatos = sessao.createQuery(HQL_CANDIDATOS)
+                    .setReadOnly(true)
+                    .setFetchSize(TAMANHO_BLOCO_LEITURA)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            int n = 0;
+            try {
+                while (candidatos.next()) {
+                    linha.registro(candidatos.get());
+                    n++;
+                }
+            } finally {
+                candidatos.close();
+                tx.rollback(); // somente leitura
+            }
+            return n;
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Busca uma página de resumos de candidatos ordenados por
+     * <code>(dataHora, cpf)</code>, com paginação por chave (<i>keyset</i>):
+     * a página começa logo após (ou termina logo antes) da linha de
+     * <code>referencia</code>, e o banco percorre somente
+     * <code>salto + limite</code> linhas do índice
+     * <code>candidato (datahora, cpf)</code>, qualquer que seja a posição.
+     * Supõe <code>datahora</code> não nula.
+     * @param filtro Os filtros
+     * @param referencia A linha de referência; <code>null</code> para o início
+     * (se <code>posterior</code>) ou o fim da listagem
+     * @param posterior <code>true</code> para as linhas após a referência,
+     * <code>false</code> para as anteriores
+     * @param salto O número de linhas a pular a partir da referência
+     * @param limite O número máximo de linhas
+     * @return As linhas, sempre em ordem crescente
+     */
+    public List<CandidatoResumo> buscaPagina(FiltroCandidatos filtro, CandidatoResumo referencia,
+            boolean posterior, int salto, int limite) {
+        StringBuilder jpql = new StringBuilder("SELECT NEW inscricao.persistence.CandidatoResumo(c.cpf, c.nome,"
+                + " c.instituicao, c.estado, c.idioma.codigo, c.dataHora) FROM Candidato c WHERE 1 = 1");
+        Map<String, Object> parametros = condicoes(filtro, jpql);
+        if (referencia != null) {
+            jpql.append(posterior
+                    ? " AND (c.dataHora > :refData OR (c.dataHora = :refData AND c.cpf > :refCpf))"
+                    : " AND (c.dataHora < :refData OR (c.dataHora = :refData AND c.cpf < :refCpf))");
+            parametros.put("refData", referencia.getDataHora());
+            parametros.put("refCpf", referencia.getCpf());
+        }
+        jpql.append(posterior ? " ORDER BY c.dataHora, c.cpf" : " ORDER BY c.dataHora DESC, c.cpf DESC");
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            TypedQuery<CandidatoResumo> q = em.createQuery(jpql.toString(), CandidatoResumo.class);
+            define(q, parametros);
+            List<CandidatoResumo> pagina = q.setFirstResult(salto).setMaxResults(limite).getResultList();
+            if (!posterior) {
+                pagina = new ArrayList<CandidatoResumo>(pagina);
+                Collections.reverse(pagina);
+            }
+            return pagina;
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
+    /**
+     * Conta os candidatos que atendem aos filtros.
+     * @param filtro Os filtros
+     * @return O número de candidatos
+     */
+    public int contaCandidatos(FiltroCandidatos filtro) {
+        StringBuilder jpql = new StringBuilder("SELECT COUNT(c) FROM Candidato c WHERE 1 = 1");
+        Map<String, Object> parametros = condicoes(filtro, jpql);
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            TypedQuery<Long> q = em.createQuery(jpql.toString(), Long.class);
+            define(q, parametros);
+            return q.getSingleResult().intValue();
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
+    private static Map<String, Object> condicoes(FiltroCandidatos filtro, StringBuilder jpql) {
+        Map<String, Object> parametros = new LinkedHashMap<String, Object>();
+        if (filtro.getEstado() != null) {
+            jpql.append(" AND c.estado = :estado");
+            parametros.put("estado", filtro.getEstado());
+        }
+        if (filtro.getIdioma() != null) {
+            jpql.append(" AND c.idioma.codigo = :idioma");
+            parametros.put("idioma", filtro.getIdioma());
+        }
+        if (filtro.getInstituicao() != null) {
+            jpql.append(" AND LOWER(c.instituicao) LIKE :instituicao");
+            parametros.put("instituicao", "%" + filtro.getInstituicao().toLowerCase() + "%");
+        }
+        if (filtro.getInicio() != null) {
+            jpql.append(" AND c.dataHora >= :inicio");
+            parametros.put("inicio", filtro.getInicio());
+        }
+        if (filtro.getFim() != null) {
+            jpql.append(" AND c.dataHora < :fim");
+            parametros.put("fim", filtro.getFim());
+        }
+        return parametros;
+    }
+
+    private static void define(TypedQuery<?> q, Map<String, Object> parametros) {
+        for (Map.Entry<String, Object> p : parametros.entrySet()) {
+            if (p.getValue() instanceof Date) q.setParameter(p.getKey(), (Date) p.getValue(), TemporalType.TIMESTAMP);
+            else q.setParameter(p.getKey(), p.getValue());
+        }
+    }
+
+    /**
+     * Preenche os parâmetros 1 a 15 com as colunas de
+     * {@link Candidato#COLUNAS_INSERCAO}, na mesma ordem.
+     */
+    private static void defineColunas(PreparedStatement ps, Candidato candidato) throws SQLException {
+        ps.setLong(1, candidato.getCpf());
+        ps.setString(2, candidato.getRg());
+        ps.setString(3, candidato.getNome());
+        ps.setString(4, candidato.getInstituicao());
+        ps.setString(5, candidato.getPrograma());
+        ps.setString(6, candidato.getEndereco());
+        ps.setString(7, candidato.getBairro());
+        ps.setString(8, candidato.getCidade());
+        ps.setString(9, candidato.getEstado());
+        if (candidato.getCep() == null) ps.setNull(10, Types.INTEGER);
+        else ps.setInt(10, candidato.getCep());
+        ps.setString(11, candidato.getFone());
+        ps.setString(12, candidato.getCelular());
+        ps.setString(13, candidato.getEmail());
+        ps.setInt(14, candidato.getIdioma().getCodigo());
+        if (candidato.getReferencia() == null) ps.setNull(15, Types.BIGINT);
+        else ps.setLong(15, candidato.getReferencia());
+    }
+
+    /**
+     * Insere um lote grande de candidatos já validados, ignorando os CPFs já
+     * cadastrados, em uma única transação.
+     * <p>
+     * No PostgreSQL as linhas são enviadas com <code>COPY FROM STDIN</code>
+     * para uma tabela temporária e inseridas com
+     * <code>INSERT ... SELECT ... ON CONFLICT (cpf) DO NOTHING</code>. Nos
+     * demais bancos, ou se a API de <code>COPY</code> do driver não estiver
+     * acessível, é usada uma inserção em lote JDBC; se o lote falhar (CPF
+     * cadastrado entre a validação e a inserção) os candidatos são inseridos
+     * um a um.
+     * @param candidatos Os candidatos, com CPFs distintos
+     * @return Os CPFs efetivamente inseridos
+     */
+    public Set<Long> insereEmMassa(final List<Candidato> candidatos) {
+        if (candidatos.isEmpty()) return Collections.emptySet();
+        EntityManager em = null;
+        Set<Long> inseridos;
+        try {
+            em = getEntityManager();
+            em.getTransaction().begin();
+            inseridos = em.unwrap(Session.class).doReturningWork(con -> {
+                Object copia = apiCopia(con);
+                return copia != null ? copia(con, copia, candidatos) : loteJDBC(con, candidatos);
+            });
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (!(e.getCause() instanceof BatchUpdateException)) throw e;
+            inseridos = null;
+        } finally {
+            if (em != null) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.close();
+            }
+        }
+        if (inseridos != null) return inseridos;
+        inseridos = new HashSet<Long>();
+        for (Candidato c : candidatos) {
+            if (inscreveIndividual(c)) inseridos.add(c.getCpf());
+        }
+        return inseridos;
+    }
+
+    /**
+     * Retorna o <code>CopyManager</code> do driver do PostgreSQL, obtido por
+     * reflexão pois o driver é do contêiner, ou <code>null</code> em outros
+     * bancos.
+     */
+    private static Object apiCopia(Connection con) throws SQLException {
+        if (!"PostgreSQL".equals(con.getMetaData().getDatabaseProductName())) return null;
+        try {
+            Class<?> pg = Class.forName("org.postgresql.PGConnection", false, con.getClass().getClassLoader());
+            if (!con.isWrapperFor(pg)) return null;
+            return pg.getMethod("getCopyAPI").invoke(con.unwrap(pg));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Set<Long> copia(Connection con, Object copia, List<Candidato> candidatos) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TEMP TABLE importacao_candidato (LIKE candidato INCLUDING DEFAULTS) ON COMMIT DROP");
+        }
+        StringBuilder dados = new StringBuilder(candidatos.size() * 256);
+        for (Candidato c : candidatos) {
+            dados.append(c.getCpf()).append('\t');
+            campoCopia(dados, c.getRg()).append('\t');
+            campoCopia(dados, c.getNome()).append('\t');
+            campoCopia(dados, c.getInstituicao()).append('\t');
+            campoCopia(dados, c.getPrograma()).append('\t');
+            campoCopia(dados, c.getEndereco()).append('\t');
+            campoCopia(dados, c.getBairro()).append('\t');
+            campoCopia(dados, c.getCidade()).append('\t');
+            campoCopia(dados, c.getEstado()).append('\t');
+            campoCopia(dados, c.getCep()).append('\t');
+            campoCopia(dados, c.getFone()).append('\t');
+            campoCopia(dados, c.getCelular()).append('\t');
+            campoCopia(dados, c.getEmail()).append('\t');
+            dados.append(c.getIdioma().getCodigo()).append('\t');
+            campoCopia(dados, c.getReferencia()).append('\n');
+        }
+        try {
+            copia.getClass().getMethod("copyIn", String.class, Reader.class).invoke(copia,
+                    "COPY importacao_candidato (" + Candidato.COLUNAS_INSERCAO + ") FROM STDIN",
+                    new StringReader(dados.toString()));
+        } catch (ReflectiveOperationException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException) throw (SQLException) causa;
+            throw new SQLException("Falha no COPY", causa != null ? causa : e);
+        }
+        Set<Long> inseridos = new HashSet<Long>();
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("INSERT INTO candidato (" + Candidato.COLUNAS_INSERCAO + ")"
+                        + " SELECT " + Candidato.COLUNAS_INSERCAO + " FROM importacao_candidato"
+                        + " ON CONFLICT (cpf) DO NOTHING RETURNING cpf")) {
+            while (rs.next()) inseridos.add(rs.getLong(1));
+        }
+        return inseridos;
+    }
+
+    /**
+     * Acrescenta um valor no formato texto do <code>COPY</code>:
+     * <code>\N</code> para nulo e escapes para barra, tabulação e quebras de linha.
+     */
+    private static StringBuilder campoCopia(StringBuilder sb, Object valor) {
+        if (valor == null) return sb.append("\\N");
+        String s = valor.toString();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private static Set<Long> loteJDBC(Connection con, List<Candidato> candidatos) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(SQL_INSERE)) {
+            for (Candidato c : candidatos) {
+                defineColunas(ps, c);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        Set<Long> inseridos = new HashSet<Long>();
+        for (Candidato c : candidatos) inseridos.add(c.getCpf());
+        return inseridos;
+    }
+
+    /**
+     * Insere um único candidato em uma transação própria.
+     * @return <code>false</code> se a inserção falhar (p. ex. CPF já cadastrado)
+     */
+    private boolean inscreveIndividual(final Candidato candidato) {
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(con -> {
+                try (PreparedStatement ps = con.prepareStatement(SQL_INSERE)) {
+                    defineColunas(ps, candidato);
+                    ps.executeUpdate();
+                }
+            });
+            em.getTransaction().commit();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        } finally {
+            if (em != null) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.close();
+            }
+        }
+    }
+}
@@ -17,6 +17,9 @@ import javax.persistence.criteria.CriteriaQuery;
  */
 public class IdiomaJpaController extends JpaController {
 
+    /** A região do cache de consultas usada por {@link #findAll()} (ver ehcache.xml). */
+    public static final String REGIAO_CONSULTAS = "query.Idioma";
+
     public IdiomaJpaController() {
     }
 
@@ -28,6 +31,8 @@ public class IdiomaJpaController extends JpaController {
             CriteriaQuery<Idioma> cq = cb.createQuery(Idioma.class);
             cq.from(Idioma.class);
             TypedQuery<Idioma> q = em.createQuery(cq);
+            q.setHint("org.hibernate.cacheable", true);
+            q.setHint("org.hibernate.cacheRegion", REGIAO_CONSULTAS);
             return q.getResultList();
         } finally {
             if (em != null) em.close();
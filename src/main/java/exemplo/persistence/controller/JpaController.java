@@ -5,6 +5,8 @@
 
 package exemplo.persistence.controller;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
@@ -16,18 +18,112 @@ import javax.persistence.Persistence;
  * @author Vitor Yudi Hansen
  */
 public class JpaController {
-    protected static EntityManagerFactory emf = null;
+    /** O nome da unidade de persistência da aplicação. */
+    public static final String UNIDADE_PERSISTENCIA = "InscricaoPU";
+
+    protected static volatile EntityManagerFactory emf = null;
+
+    /**
+     * O <code>EntityManager</code> compartilhado da requisição em andamento
+     * na thread, se houver uma unidade de trabalho iniciada.
+     */
+    private static final class UnidadeTrabalho {
+        private EntityManager em;
+        private EntityManager compartilhado;
+    }
+
+    private static final ThreadLocal<UnidadeTrabalho> unidadeTrabalho = new ThreadLocal<UnidadeTrabalho>();
 
     public JpaController() {
     }
 
+    /**
+     * Retorna a fábrica de <code>EntityManager</code>s, criando-a se ainda não
+     * foi criada na inicialização da aplicação.
+     * @return A fábrica
+     */
     public EntityManagerFactory getEMFactory() {
+        EntityManagerFactory f = emf;
+        return f != null ? f : criaEMFactory();
+    }
+
+    /**
+     * Retorna um <code>EntityManager</code>, que deve ser fechado pelo
+     * chamador. Dentro de uma unidade de trabalho (ver
+     * {@link #iniciaUnidadeTrabalho()}) todas as chamadas da mesma thread
+     * recebem o mesmo <code>EntityManager</code>, aberto na primeira chamada;
+     * o seu <code>close()</code> é ignorado e ele é fechado somente no fim da
+     * unidade de trabalho.
+     * @return O <code>EntityManager</code>
+     */
+    public EntityManager getEntityManager() {
+        UnidadeTrabalho u = unidadeTrabalho.get();
+        if (u == null) return getEMFactory().createEntityManager();
+        if (u.em == null) {
+            u.em = getEMFactory().createEntityManager();
+            u.compartilhado = naoFechavel(u.em);
+        }
+        return u.compartilhado;
+    }
+
+    private static EntityManager naoFechavel(final EntityManager em) {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[] { EntityManager.class }, (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("close") && metodo.getParameterTypes().length == 0)
+                        return null;
+                    try {
+                        return metodo.invoke(em, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Inicia uma unidade de trabalho na thread atual: até
+     * {@link #encerraUnidadeTrabalho()}, os controladores compartilham um
+     * único <code>EntityManager</code>, aberto somente se for usado.
+     */
+    public static void iniciaUnidadeTrabalho() {
+        unidadeTrabalho.set(new UnidadeTrabalho());
+    }
+
+    /**
+     * Encerra a unidade de trabalho da thread atual, desfazendo uma transação
+     * deixada aberta e fechando o <code>EntityManager</code> compartilhado.
+     */
+    public static void encerraUnidadeTrabalho() {
+        UnidadeTrabalho u = unidadeTrabalho.get();
+        unidadeTrabalho.remove();
+        if (u == null || u.em == null) return;
+        try {
+            if (u.em.getTransaction().isActive()) u.em.getTransaction().rollback();
+        } finally {
+            u.em.close();
+        }
+    }
+
+    /**
+     * Cria a fábrica de <code>EntityManager</code>s, uma única vez mesmo
+     * com chamadas concorrentes.
+     * @return A fábrica
+     */
+    public static synchronized EntityManagerFactory criaEMFactory() {
         if (emf == null)
-            emf = Persistence.createEntityManagerFactory("InscricaoPU");
+            emf = Persistence.createEntityManagerFactory(UNIDADE_PERSISTENCIA);
         return emf;
     }
 
-    public EntityManager getEntityManager() {
-        return getEMFactory().createEntityManager();
+    /**
+     * Fecha a fábrica de <code>EntityManager</code>s, se estiver aberta.
+     */
+    public static synchronized void fechaEMFactory() {
+        if (emf != null) {
+            try {
+                emf.close();
+            } finally {
+                emf = null;
+            }
+        }
     }
 }
@@ -0,0 +1,34 @@
+package exemplo.persistence.controller;
+
+import exemplo.util.GeradorReferencia;
+import javax.persistence.EntityManager;
+
+/**
+ * Reserva blocos de números de referência da GRU a partir da sequence
+ * <code>referencia_gru_seq</code>. O incremento da sequence deve ser igual
+ * ao tamanho do bloco, p. ex.:
+ * <pre>
+ * CREATE SEQUENCE referencia_gru_seq INCREMENT BY 1000 MINVALUE 1;
+ * </pre>
+ * Cada <code>nextval</code> retorna o início de um bloco exclusivo, mesmo
+ * com vários nós acessando o mesmo banco.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class ReferenciaJpaController extends JpaController implements GeradorReferencia.FonteBlocos {
+
+    public ReferenciaJpaController() {
+    }
+
+    @Override
+    public long reservaBloco() {
+        EntityManager em = null;
+        try {
+            em = getEntityManager();
+            Number inicio = (Number) em.createNativeQuery("SELECT nextval('referencia_gru_seq')").getSingleResult();
+            return inicio.longValue();
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package exemplo.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lê e valida o código de barras ou a linha digitável de bloquetos.
+ * São suportados os bloquetos bancários (código de barras com 44 dígitos e
+ * linha digitável com 47) e os de arrecadação, como a GRU (código de barras
+ * com 44 dígitos iniciado por 8 e linha digitável com 48).
+ * <p>
+ * A entrada é lida em uma única passada sobre <code>CharSequence</code>,
+ * <code>char[]</code>, <code>byte[]</code> ou <code>ByteBuffer</code>, ignorando
+ * os caracteres de máscara (<code>. -</code> e espaços); o tipo é deduzido
+ * pelo número de dígitos. São verificados os DVs de cada campo da linha
+ * digitável (módulo 10 ou 11, ver {@link DVModulo10} e {@link DVModulo11})
+ * e o DV geral do código de barras. Depois de uma leitura válida é possível
+ * obter o valor, o fator de vencimento e as duas representações, sem criar
+ * <code>String</code>s intermediárias.
+ * <p>
+ * Instâncias são mutáveis e reutilizáveis, como as de {@link DigitoVerificador},
+ * e não devem ser compartilhadas entre threads. Para arquivos de retorno use
+ * {@link #validadorLinha()} com o {@link ValidadorArquivo}.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class Boleto {
+
+    /**
+     * Os tipos de bloqueto.
+     */
+    public enum Tipo {
+        /** Bloqueto bancário (cobrança). */
+        BANCARIO,
+        /** Bloqueto de arrecadação (convênios, tributos, GRU). */
+        ARRECADACAO
+    }
+
+    /**
+     * O resultado da leitura.
+     */
+    public enum Situacao {
+        /** Todos os DVs conferem. */
+        VALIDO,
+        /** Caracteres inválidos, número de dígitos incorreto ou identificador inválido. */
+        FORMATO_INVALIDO,
+        /** O DV de algum campo da linha digitável não confere. */
+        DV_CAMPO_INVALIDO,
+        /** O DV geral do código de barras não confere. */
+        DV_GERAL_INVALIDO
+    }
+
+    /** Número de dígitos do código de barras. */
+    public static final int TAMANHO_CODIGO_BARRAS = 44;
+
+    /** Número de dígitos da linha digitável de bloquetos bancários. */
+    public static final int TAMANHO_LINHA_BANCARIO = 47;
+
+    /** Número de dígitos da linha digitável de bloquetos de arrecadação. */
+    public static final int TAMANHO_LINHA_ARRECADACAO = 48;
+
+    /** Os dígitos lidos da entrada. */
+    private final byte[] entrada = new byte[TAMANHO_LINHA_ARRECADACAO];
+    /** Os dígitos do código de barras. */
+    private final byte[] codigo = new byte[TAMANHO_CODIGO_BARRAS];
+    /** Área de trabalho: código de barras sem o DV geral ou linha digitável. */
+    private final byte[] auxiliar = new byte[TAMANHO_LINHA_ARRECADACAO];
+    private int numDigitos;
+    private Tipo tipo;
+    private Situacao situacao = Situacao.FORMATO_INVALIDO;
+
+    /**
+     * Lê um código de barras ou uma linha digitável.
+     * @param texto O código de barras ou a linha digitável, com ou sem máscara
+     * @return O resultado da leitura
+     */
+    public Situacao le(CharSequence texto) {
+        numDigitos = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (!extrai(texto.charAt(i))) return situacao = Situacao.FORMATO_INVALIDO;
+        }
+        return processa();
+    }
+
+    /**
+     * Lê um código de barras ou uma linha digitável contida em <code>chars[inicio, fim)</code>.
+     * @param chars Os caracteres
+     * @param inicio Índice do primeiro caractere
+     * @param fim Índice seguinte ao último caractere
+     * @return O resultado da leitura
+     */
+    public Situacao le(char[] chars, int inicio, int fim) {
+        numDigitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (!extrai(chars[i])) return situacao = Situacao.FORMATO_INVALIDO;
+        }
+        return processa();
+    }
+
+    /**
+     * Lê um código de barras ou uma linha digitável, em ASCII, contida em
+     * <code>bytes[inicio, fim)</code>.
+     * @param bytes Os bytes
+     * @param inicio Índice do primeiro byte
+     * @param fim Índice seguinte ao último byte
+     * @return O resultado da leitura
+     */
+    public Situacao le(byte[] bytes, int inicio, int fim) {
+        numDigitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (!extrai(bytes[i])) return situacao = Situacao.FORMATO_INVALIDO;
+        }
+        return processa();
+    }
+
+    /**
+     * Lê um código de barras ou uma linha digitável, em ASCII, contida entre
+     * as posições absolutas <code>[inicio, fim)</code> do buffer. A posição do
+     * buffer não é alterada.
+     * @param buf O buffer
+     * @param inicio Posição do primeiro byte
+     * @param fim Posição seguinte ao último byte
+     * @return O resultado da leitura
+     */
+    public Situacao le(ByteBuffer buf, int inicio, int fim) {
+        numDigitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (!extrai(buf.get(i))) return situacao = Situacao.FORMATO_INVALIDO;
+        }
+        return processa();
+    }
+
+    private boolean extrai(int c) {
+        if (c >= '0' && c <= '9') {
+            if (numDigitos == entrada.length) return false;
+            entrada[numDigitos++] = (byte) (c - '0');
+            return true;
+        }
+        return c == '.' || c == '-' || c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private Situacao processa() {
+        switch (numDigitos) {
+            case TAMANHO_CODIGO_BARRAS:
+                System.arraycopy(entrada, 0, codigo, 0, TAMANHO_CODIGO_BARRAS);
+                tipo = codigo[0] == 8 ? Tipo.ARRECADACAO : Tipo.BANCARIO;
+                break;
+            case TAMANHO_LINHA_BANCARIO:
+                tipo = Tipo.BANCARIO;
+                if (!verificaCamposBancario()) return situacao = Situacao.DV_CAMPO_INVALIDO;
+                montaCodigoBancario();
+                break;
+            case TAMANHO_LINHA_ARRECADACAO:
+                tipo = Tipo.ARRECADACAO;
+                if (entrada[0] != 8 || calculadoraArrecadacao(entrada[2]) == null)
+                    return situacao = Situacao.FORMATO_INVALIDO;
+                if (!verificaCamposArrecadacao()) return situacao = Situacao.DV_CAMPO_INVALIDO;
+                for (int k = 0; k < 4; k++)
+                    System.arraycopy(entrada, 12 * k, codigo, 11 * k, 11);
+                break;
+            default:
+                return situacao = Situacao.FORMATO_INVALIDO;
+        }
+        CalculadoraDV calculadora = calculadoraGeral();
+        if (calculadora == null) return situacao = Situacao.FORMATO_INVALIDO;
+        int pos = posicaoDVGeral();
+        System.arraycopy(codigo, 0, auxiliar, 0, pos);
+        System.arraycopy(codigo, pos + 1, auxiliar, pos, TAMANHO_CODIGO_BARRAS - pos - 1);
+        int dv = calculadora.calculaDigitos(auxiliar, 0, TAMANHO_CODIGO_BARRAS - 1);
+        return situacao = dv == codigo[pos] ? Situacao.VALIDO : Situacao.DV_GERAL_INVALIDO;
+    }
+
+    /**
+     * Linha digitável bancária: três campos com DV módulo 10, nas posições
+     * 9, 20 e 31.
+     */
+    private boolean verificaCamposBancario() {
+        CalculadoraDV m10 = CalculadoraDV.modulo10();
+        return m10.calculaDigitos(entrada, 0, 9) == entrada[9]
+                && m10.calculaDigitos(entrada, 10, 20) == entrada[20]
+                && m10.calculaDigitos(entrada, 21, 31) == entrada[31];
+    }
+
+    /**
+     * Linha digitável de arrecadação: quatro blocos de 11 dígitos, cada um
+     * seguido do seu DV.
+     */
+    private boolean verificaCamposArrecadacao() {
+        CalculadoraDV calculadora = calculadoraArrecadacao(entrada[2]);
+        for (int k = 0; k < 4; k++) {
+            if (calculadora.calculaDigitos(entrada, 12 * k, 12 * k + 11) != entrada[12 * k + 11])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Monta o código de barras a partir da linha digitável bancária.
+     */
+    private void montaCodigoBancario() {
+        System.arraycopy(entrada, 0, codigo, 0, 4);     // banco e moeda
+        codigo[4] = entrada[32];                        // DV geral
+        System.arraycopy(entrada, 33, codigo, 5, 14);   // fator de vencimento e valor
+        System.arraycopy(entrada, 4, codigo, 19, 5);    // campo livre
+        System.arraycopy(entrada, 10, codigo, 24, 10);
+        System.arraycopy(entrada, 21, codigo, 34, 10);
+    }
+
+    /**
+     * Monta a linha digitável em <code>auxiliar</code> a partir do código de barras.
+     * @return O número de dígitos da linha
+     */
+    private int montaLinha() {
+        if (tipo == Tipo.BANCARIO) {
+            CalculadoraDV m10 = CalculadoraDV.modulo10();
+            System.arraycopy(codigo, 0, auxiliar, 0, 4);
+            System.arraycopy(codigo, 19, auxiliar, 4, 5);
+            auxiliar[9] = (byte) m10.calculaDigitos(auxiliar, 0, 9);
+            System.arraycopy(codigo, 24, auxiliar, 10, 10);
+            auxiliar[20] = (byte) m10.calculaDigitos(auxiliar, 10, 20);
+            System.arraycopy(codigo, 34, auxiliar, 21, 10);
+            auxiliar[31] = (byte) m10.calculaDigitos(auxiliar, 21, 31);
+            auxiliar[32] = codigo[4];
+            System.arraycopy(codigo, 5, auxiliar, 33, 14);
+            return TAMANHO_LINHA_BANCARIO;
+        }
+        CalculadoraDV calculadora = calculadoraArrecadacao(codigo[2]);
+        for (int k = 0; k < 4; k++) {
+            System.arraycopy(codigo, 11 * k, auxiliar, 12 * k, 11);
+            auxiliar[12 * k + 11] = (byte) calculadora.calculaDigitos(auxiliar, 12 * k, 12 * k + 11);
+        }
+        return TAMANHO_LINHA_ARRECADACAO;
+    }
+
+    private CalculadoraDV calculadoraGeral() {
+        return tipo == Tipo.BANCARIO ? CalculadoraDV.modulo11Barcode() : calculadoraArrecadacao(codigo[2]);
+    }
+
+    private int posicaoDVGeral() {
+        return tipo == Tipo.BANCARIO ? 4 : 3;
+    }
+
+    /**
+     * O terceiro dígito dos bloquetos de arrecadação identifica o valor e o
+     * módulo: 6 e 7 usam módulo 10; 8 e 9 usam módulo 11.
+     */
+    private static CalculadoraDV calculadoraArrecadacao(int identificador) {
+        switch (identificador) {
+            case 6:
+            case 7:
+                return CalculadoraDV.modulo10();
+            case 8:
+            case 9:
+                return CalculadoraDV.modulo11();
+            default:
+                return null;
+        }
+    }
+
+    private void verificaValido() {
+        if (situacao != Situacao.VALIDO)
+            throw new IllegalStateException("Nenhum bloqueto válido foi lido (" + situacao + ")");
+    }
+
+    private long numero(int inicio, int fim) {
+        long v = 0;
+        for (int i = inicio; i < fim; i++)
+            v = v * 10 + codigo[i];
+        return v;
+    }
+
+    /**
+     * Retorna o resultado da última leitura.
+     * @return O resultado
+     */
+    public Situacao getSituacao() {
+        return situacao;
+    }
+
+    /**
+     * Retorna o tipo do último bloqueto válido lido.
+     * @return O tipo
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public Tipo getTipo() {
+        verificaValido();
+        return tipo;
+    }
+
+    /**
+     * Retorna o valor, em centavos. Nos bloquetos de arrecadação com
+     * identificador 7 ou 9 é uma quantidade de moeda de referência.
+     * @return O valor
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public long getValor() {
+        verificaValido();
+        return tipo == Tipo.BANCARIO ? numero(9, 19) : numero(4, 15);
+    }
+
+    /**
+     * Retorna o fator de vencimento dos bloquetos bancários, isto é, o número
+     * de dias desde a data base da FEBRABAN (0 indica ausência de vencimento).
+     * @return O fator, ou -1 nos bloquetos de arrecadação
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public int getFatorVencimento() {
+        verificaValido();
+        return tipo == Tipo.BANCARIO ? (int) numero(5, 9) : -1;
+    }
+
+    /**
+     * Copia os 44 dígitos do código de barras para <code>destino</code>.
+     * @param destino O array de destino
+     * @param inicio O índice inicial no destino
+     * @return O número de caracteres copiados
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public int getCodigoBarras(char[] destino, int inicio) {
+        verificaValido();
+        for (int i = 0; i < TAMANHO_CODIGO_BARRAS; i++)
+            destino[inicio + i] = (char) ('0' + codigo[i]);
+        return TAMANHO_CODIGO_BARRAS;
+    }
+
+    /**
+     * Copia os dígitos da linha digitável, sem máscara, para <code>destino</code>.
+     * @param destino O array de destino
+     * @param inicio O índice inicial no destino
+     * @return O número de caracteres copiados (47 ou 48)
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public int getLinhaDigitavel(char[] destino, int inicio) {
+        verificaValido();
+        int n = montaLinha();
+        for (int i = 0; i < n; i++)
+            destino[inicio + i] = (char) ('0' + auxiliar[i]);
+        return n;
+    }
+
+    /**
+     * Retorna o código de barras como <code>String</code>.
+     * @return O código de barras
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public String getCodigoBarras() {
+        char[] c = new char[TAMANHO_CODIGO_BARRAS];
+        return new String(c, 0, getCodigoBarras(c, 0));
+    }
+
+    /**
+     * Retorna a linha digitável, sem máscara, como <code>String</code>.
+     * @return A linha digitável
+     * @throws IllegalStateException se a última leitura não foi válida
+     */
+    public String getLinhaDigitavel() {
+        char[] c = new char[TAMANHO_LINHA_ARRECADACAO];
+        return new String(c, 0, getLinhaDigitavel(c, 0));
+    }
+
+    /**
+     * Cria um validador de linhas de arquivo de retorno, uma linha por
+     * código de barras ou linha digitável, para uso com o {@link ValidadorArquivo}:
+     * <pre>
+     * new ValidadorArquivo(Boleto::validadorLinha).valida(arquivo, ouvinte);
+     * </pre>
+     * Linhas em branco são consideradas válidas.
+     * @return O validador, com a sua própria instância de <code>Boleto</code>
+     */
+    public static ValidadorArquivo.ValidadorLinha validadorLinha() {
+        final Boleto boleto = new Boleto();
+        return (buf, inicio, fim) -> fim == inicio
+                || fim == inicio + 1 && buf.get(inicio) == '\r'
+                || boleto.le(buf, inicio, fim) == Situacao.VALIDO;
+    }
+}
@@ -0,0 +1,522 @@
+package exemplo.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Calculadora de dígitos verificadores compilada a partir de um {@link EsquemaDV}.
+ * Todas as parcelas digito x peso (já reduzidas) são pré-calculadas em tabelas
+ * indexadas por <code>posição * 10 + dígito</code>, de modo que o cálculo é
+ * um único laço de consultas e somas, igual para todos os esquemas.
+ * <p>
+ * Instâncias são imutáveis e sem estado, podendo ser mantidas em campos
+ * estáticos ou beans de aplicação e compartilhadas entre threads sem
+ * sincronização. As calculadoras dos esquemas pré-definidos são obtidas por
+ * métodos como {@link #cpf()} e {@link #cnpj()}, p. ex.:
+ * <pre>
+ * int dv = CalculadoraDV.cpf().calcula(123456789L);   // 9
+ * boolean ok = CalculadoraDV.cnpj().isValido("11222333000181");
+ * </pre>
+ * Ao contrário das subclasses de {@link DigitoVerificador}, que são mutáveis,
+ * não é preciso criar uma instância por valor.
+ * <p>
+ * Os métodos <code>*Alfanumerico</code> aceitam valores base com letras
+ * maiúsculas, como o CNPJ alfanumérico da RFB: o valor de cada caractere é o
+ * seu código ASCII menos 48 ('0' a '9' valem 0 a 9, 'A' vale 17, 'Z' vale 42).
+ * Os DVs continuam numéricos. Esses métodos trabalham diretamente sobre
+ * <code>ByteBuffer</code>/<code>byte[]</code> ou <code>CharSequence</code>/<code>char[]</code>,
+ * sem expressões regulares nem conversão para <code>long</code>.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ * @see EsquemaDV#compila()
+ */
+public final class CalculadoraDV {
+
+    private static final long[] POTENCIAS_10 = new long[19];
+
+    static {
+        POTENCIAS_10[0] = 1;
+        for (int i = 1; i < POTENCIAS_10.length; i++)
+            POTENCIAS_10[i] = POTENCIAS_10[i - 1] * 10;
+    }
+
+    /**
+     * As calculadoras dos esquemas pré-definidos, criadas no primeiro uso.
+     */
+    private static class Padroes {
+        static final CalculadoraDV MODULO10 = EsquemaDV.MODULO10.compila();
+        static final CalculadoraDV MODULO11 = EsquemaDV.MODULO11.compila();
+        static final CalculadoraDV MODULO11_BARCODE = EsquemaDV.MODULO11_BARCODE.compila();
+        static final CalculadoraDV MODULO11_CPF = EsquemaDV.MODULO11_CPF.compila();
+        static final CalculadoraDV CPF = EsquemaDV.CPF.compila();
+        static final CalculadoraDV CNPJ = EsquemaDV.CNPJ.compila();
+        static final CalculadoraDV PIS_PASEP = EsquemaDV.PIS_PASEP.compila();
+        static final CalculadoraDV RENAVAM = EsquemaDV.RENAVAM.compila();
+        static final CalculadoraDV TITULO_ELEITOR = EsquemaDV.TITULO_ELEITOR.compila();
+    }
+
+    private final EsquemaDV esquema;
+    private final int modulo;
+    private final boolean complemento;
+    private final boolean ajusteBarcode;
+    private final int numDV;
+    private final int maxDigitos;
+    private final long maxBase;
+    private final long divisorDV;
+    /** Parcelas dos dígitos do valor base no primeiro DV. */
+    private final int[] parcelas1;
+    /** Parcelas dos dígitos do valor base no segundo DV (zeros se houver só um DV). */
+    private final int[] parcelas2;
+    /** Parcelas do primeiro DV no cálculo do segundo DV. */
+    private final int[] parcelasDV1;
+    /** Pesos de cada posição no primeiro DV, para valores alfanuméricos. */
+    private final int[] pesos1;
+    /** Pesos de cada posição no segundo DV (zeros se houver só um DV). */
+    private final int[] pesos2;
+    private final boolean somaDigitos;
+
+    CalculadoraDV(EsquemaDV esquema) {
+        this.esquema = esquema;
+        this.modulo = esquema.getModulo();
+        this.complemento = esquema.getCalculo() == EsquemaDV.Calculo.COMPLEMENTO;
+        this.ajusteBarcode = esquema.getAjuste() == EsquemaDV.Ajuste.BARCODE;
+        this.numDV = esquema.getNumDV();
+        this.maxDigitos = esquema.getMaxDigitos();
+        this.maxBase = maxDigitos >= 19 ? Long.MAX_VALUE : POTENCIAS_10[maxDigitos] - 1;
+        this.divisorDV = POTENCIAS_10[numDV];
+        this.parcelas1 = new int[maxDigitos * 10];
+        this.parcelas2 = new int[maxDigitos * 10];
+        this.parcelasDV1 = new int[10];
+        this.pesos1 = new int[maxDigitos];
+        this.pesos2 = new int[maxDigitos];
+        this.somaDigitos = esquema.getReducao() == EsquemaDV.Reducao.SOMA_DIGITOS;
+        for (int pos = 0; pos < maxDigitos; pos++) {
+            pesos1[pos] = esquema.getPeso(0, pos);
+            if (numDV == 2)
+                pesos2[pos] = esquema.getPeso(1, pos + 1);
+            for (int d = 0; d < 10; d++) {
+                parcelas1[pos * 10 + d] = esquema.reduz(d * esquema.getPeso(0, pos));
+                if (numDV == 2)
+                    parcelas2[pos * 10 + d] = esquema.reduz(d * esquema.getPeso(1, pos + 1));
+            }
+        }
+        if (numDV == 2) {
+            for (int d = 0; d < 10; d++)
+                parcelasDV1[d] = esquema.reduz(d * esquema.getPeso(1, 0));
+        }
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#MODULO10}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV modulo10() {
+        return Padroes.MODULO10;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#MODULO11}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV modulo11() {
+        return Padroes.MODULO11;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#MODULO11_BARCODE}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV modulo11Barcode() {
+        return Padroes.MODULO11_BARCODE;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#MODULO11_CPF}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV modulo11CPF() {
+        return Padroes.MODULO11_CPF;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#CPF}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV cpf() {
+        return Padroes.CPF;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#CNPJ}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV cnpj() {
+        return Padroes.CNPJ;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#PIS_PASEP}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV pisPasep() {
+        return Padroes.PIS_PASEP;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#RENAVAM}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV renavam() {
+        return Padroes.RENAVAM;
+    }
+
+    /**
+     * Retorna a calculadora compartilhada do esquema {@link EsquemaDV#TITULO_ELEITOR}.
+     * @return A calculadora
+     */
+    public static CalculadoraDV tituloEleitor() {
+        return Padroes.TITULO_ELEITOR;
+    }
+
+    /**
+     * Calcula os DVs do valor base.
+     * @param base O valor base, não negativo
+     * @return Os DVs; com 2 DVs o resultado é <code>dv1 * 10 + dv2</code>
+     * @throws IllegalArgumentException se o valor base for negativo ou tiver dígitos demais
+     */
+    public int calcula(long base) {
+        if (base < 0 || base > maxBase)
+            throw new IllegalArgumentException(String.format("%s inválido: %d. Deve ter no máximo %d dígitos", esquema.getNome(), base, maxDigitos));
+        int s1 = 0;
+        int s2 = 0;
+        for (int i = 0; base > 0; i += 10, base /= 10) {
+            int d = (int) (base % 10);
+            s1 += parcelas1[i + d];
+            s2 += parcelas2[i + d];
+        }
+        return combina(s1, s2);
+    }
+
+    /**
+     * Calcula os DVs do valor base informado como texto, contendo somente dígitos.
+     * @param base O valor base
+     * @return Os DVs; com 2 DVs o resultado é <code>dv1 * 10 + dv2</code>
+     * @throws IllegalArgumentException se o valor contiver caracteres não numéricos
+     * ou tiver dígitos demais
+     */
+    public int calcula(CharSequence base) {
+        int n = verificaTamanho(base);
+        int s1 = 0;
+        int s2 = 0;
+        for (int i = 0, j = n - 1; j >= 0; i += 10, j--) {
+            int d = digito(base, j);
+            s1 += parcelas1[i + d];
+            s2 += parcelas2[i + d];
+        }
+        return combina(s1, s2);
+    }
+
+    /**
+     * Calcula os DVs de um valor base informado como array de valores de
+     * dígitos (0 a 9, não ASCII), considerando os elementos <code>[inicio, fim)</code>.
+     * Útil para calcular DVs de campos de um número maior já decomposto em
+     * dígitos, como os campos da linha digitável de um bloqueto.
+     * @param digitos Os valores dos dígitos, do mais para o menos significativo
+     * @param inicio Índice do primeiro dígito
+     * @param fim Índice seguinte ao último dígito
+     * @return Os DVs; com 2 DVs o resultado é <code>dv1 * 10 + dv2</code>
+     * @throws IllegalArgumentException se houver dígitos demais
+     */
+    public int calculaDigitos(byte[] digitos, int inicio, int fim) {
+        if (fim - inicio > maxDigitos)
+            throw new IllegalArgumentException(String.format("%s: o valor deve ter no máximo %d dígitos", esquema.getNome(), maxDigitos));
+        int s1 = 0;
+        int s2 = 0;
+        for (int i = 0, j = fim - 1; j >= inicio; i += 10, j--) {
+            int d = digitos[j];
+            s1 += parcelas1[i + d];
+            s2 += parcelas2[i + d];
+        }
+        return combina(s1, s2);
+    }
+
+    /**
+     * Retorna o somatório das parcelas do primeiro DV, equivalente a
+     * {@link DigitoVerificador#getSomatorio()}.
+     * @param base O valor base
+     * @return O somatório
+     * @throws IllegalArgumentException se o valor contiver caracteres não numéricos
+     * ou tiver dígitos demais
+     */
+    public int somatorio(CharSequence base) {
+        int n = verificaTamanho(base);
+        int s1 = 0;
+        for (int i = 0, j = n - 1; j >= 0; i += 10, j--)
+            s1 += parcelas1[i + digito(base, j)];
+        return s1;
+    }
+
+    /**
+     * Retorna <code>true</code> se o número completo (valor base seguido dos DVs)
+     * for válido. Não lança exceção: números negativos ou com dígitos demais
+     * são simplesmente inválidos.
+     * @param numero O valor base seguido dos DVs
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public boolean isValido(long numero) {
+        if (numero < 0) return false;
+        long base = numero / divisorDV;
+        return base <= maxBase && calcula(base) == numero - base * divisorDV;
+    }
+
+    /**
+     * Retorna <code>true</code> se o número completo, informado como texto
+     * contendo somente dígitos (valor base seguido dos DVs), for válido.
+     * Não lança exceção: textos vazios, com caracteres não numéricos ou
+     * com dígitos demais são simplesmente inválidos.
+     * @param numero O valor base seguido dos DVs
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public boolean isValido(CharSequence numero) {
+        int n = numero.length() - numDV;
+        if (n < 0 || n > maxDigitos) return false;
+        int s1 = 0;
+        int s2 = 0;
+        for (int i = 0, j = n - 1; j >= 0; i += 10, j--) {
+            char c = numero.charAt(j);
+            if (c < '0' || c > '9') return false;
+            s1 += parcelas1[i + c - '0'];
+            s2 += parcelas2[i + c - '0'];
+        }
+        int dv = 0;
+        for (int j = n; j < numero.length(); j++) {
+            char c = numero.charAt(j);
+            if (c < '0' || c > '9') return false;
+            dv = dv * 10 + c - '0';
+        }
+        return combina(s1, s2) == dv;
+    }
+
+    /**
+     * Calcula os DVs de um valor base alfanumérico com exatamente
+     * {@link #getMaxDigitos()} caracteres, dígitos ou letras maiúsculas.
+     * @param base O valor base
+     * @return Os DVs; com 2 DVs o resultado é <code>dv1 * 10 + dv2</code>
+     * @throws IllegalArgumentException se o valor tiver tamanho ou caracteres inválidos
+     */
+    public int calculaAlfanumerico(CharSequence base) {
+        if (base.length() != maxDigitos)
+            throw new IllegalArgumentException(String.format("%s inválido: %s. Deve ter %d caracteres", esquema.getNome(), base, maxDigitos));
+        int s1 = 0;
+        int s2 = 0;
+        for (int k = 0, pos = maxDigitos - 1; pos >= 0; k++, pos--) {
+            int v = valorAlfanumerico(base.charAt(k));
+            if (v < 0)
+                throw new IllegalArgumentException(String.format("'%s' contem caracteres inválidos", base));
+            s1 += parcela(v, pesos1[pos]);
+            s2 += parcela(v, pesos2[pos]);
+        }
+        return combina(s1, s2);
+    }
+
+    /**
+     * Retorna <code>true</code> se o número alfanumérico completo for válido.
+     * O número deve ter {@link #getMaxDigitos()} caracteres de valor base
+     * (dígitos ou letras maiúsculas) seguidos de {@link #getNumDV()} DVs
+     * numéricos. Caracteres de máscara (<code>. - /</code>) e espaços são
+     * ignorados, p. ex. <code>12.ABC.345/01DE-35</code>.
+     * Não lança exceção para números mal formados.
+     * @param numero O número completo
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public boolean isValidoAlfanumerico(CharSequence numero) {
+        int s1 = 0;
+        int s2 = 0;
+        int dv = 0;
+        int k = 0;
+        for (int j = 0; j < numero.length(); j++) {
+            char c = numero.charAt(j);
+            if (isSeparador(c)) continue;
+            if (k < maxDigitos) {
+                int v = valorAlfanumerico(c);
+                if (v < 0) return false;
+                int pos = maxDigitos - 1 - k;
+                s1 += parcela(v, pesos1[pos]);
+                s2 += parcela(v, pesos2[pos]);
+            } else if (k < maxDigitos + numDV && c >= '0' && c <= '9') {
+                dv = dv * 10 + c - '0';
+            } else {
+                return false;
+            }
+            k++;
+        }
+        return k == maxDigitos + numDV && combina(s1, s2) == dv;
+    }
+
+    /**
+     * Retorna <code>true</code> se o número alfanumérico completo contido em
+     * <code>chars[inicio, fim)</code> for válido.
+     * @param chars Os caracteres
+     * @param inicio Índice do primeiro caractere
+     * @param fim Índice seguinte ao último caractere
+     * @return <code>true</code> se os DVs conferirem
+     * @see #isValidoAlfanumerico(CharSequence)
+     */
+    public boolean isValidoAlfanumerico(char[] chars, int inicio, int fim) {
+        return isValidoAlfanumerico(CharBuffer.wrap(chars, inicio, fim - inicio));
+    }
+
+    /**
+     * Retorna <code>true</code> se o número alfanumérico completo, em ASCII,
+     * contido em <code>bytes[inicio, fim)</code> for válido.
+     * @param bytes Os bytes
+     * @param inicio Índice do primeiro byte
+     * @param fim Índice seguinte ao último byte
+     * @return <code>true</code> se os DVs conferirem
+     * @see #isValidoAlfanumerico(CharSequence)
+     */
+    public boolean isValidoAlfanumerico(byte[] bytes, int inicio, int fim) {
+        return isValidoAlfanumerico(ByteBuffer.wrap(bytes), inicio, fim);
+    }
+
+    /**
+     * Retorna <code>true</code> se o número alfanumérico completo, em ASCII,
+     * contido entre as posições absolutas <code>[inicio, fim)</code> do buffer
+     * for válido. A posição do buffer não é alterada, o que permite usar
+     * buffers mapeados em memória compartilhados entre threads.
+     * @param buf O buffer
+     * @param inicio Posição do primeiro byte
+     * @param fim Posição seguinte ao último byte
+     * @return <code>true</code> se os DVs conferirem
+     * @see #isValidoAlfanumerico(CharSequence)
+     */
+    public boolean isValidoAlfanumerico(ByteBuffer buf, int inicio, int fim) {
+        int s1 = 0;
+        int s2 = 0;
+        int dv = 0;
+        int k = 0;
+        for (int j = inicio; j < fim; j++) {
+            int c = buf.get(j);
+            if (isSeparador(c)) continue;
+            if (k < maxDigitos) {
+                int v = valorAlfanumerico(c);
+                if (v < 0) return false;
+                int pos = maxDigitos - 1 - k;
+                s1 += parcela(v, pesos1[pos]);
+                s2 += parcela(v, pesos2[pos]);
+            } else if (k < maxDigitos + numDV && c >= '0' && c <= '9') {
+                dv = dv * 10 + c - '0';
+            } else {
+                return false;
+            }
+            k++;
+        }
+        return k == maxDigitos + numDV && combina(s1, s2) == dv;
+    }
+
+    private int parcela(int valor, int peso) {
+        int p = valor * peso;
+        return somaDigitos ? esquema.reduz(p) : p;
+    }
+
+    /**
+     * Retorna o valor de um caractere alfanumérico (ASCII menos 48), ou -1
+     * se não for dígito ou letra maiúscula.
+     */
+    private static int valorAlfanumerico(int c) {
+        if (c >= '0' && c <= '9' || c >= 'A' && c <= 'Z') return c - '0';
+        return -1;
+    }
+
+    private static boolean isSeparador(int c) {
+        return c == '.' || c == '-' || c == '/' || c == ' ' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Aplica o módulo, o cálculo e o ajuste do esquema ao somatório.
+     * @param somatorio O somatório das parcelas
+     * @return O DV
+     */
+    int ajusta(int somatorio) {
+        int r = somatorio % modulo;
+        int dv = complemento ? (r == 0 ? 0 : modulo - r) : r;
+        if (ajusteBarcode) {
+            if (dv == 0 || dv > 9) dv = 1;
+        } else if (dv > 9) {
+            dv = 0;
+        }
+        return dv;
+    }
+
+    /**
+     * Retorna a parcela do dígito <code>d</code> na posição <code>pos</code>
+     * do valor base no somatório do primeiro DV.
+     */
+    int parcela1(int pos, int d) {
+        return parcelas1[pos * 10 + d];
+    }
+
+    /**
+     * Retorna a parcela do dígito <code>d</code> na posição <code>pos</code>
+     * do valor base no somatório do segundo DV (0 se houver só um DV).
+     */
+    int parcela2(int pos, int d) {
+        return parcelas2[pos * 10 + d];
+    }
+
+    /**
+     * Obtém os DVs a partir dos somatórios dos dígitos do valor base.
+     */
+    int combina(int s1, int s2) {
+        int dv1 = ajusta(s1);
+        if (numDV == 1) return dv1;
+        return dv1 * 10 + ajusta(s2 + parcelasDV1[dv1]);
+    }
+
+    private int verificaTamanho(CharSequence base) {
+        int n = base.length();
+        if (n > maxDigitos)
+            throw new IllegalArgumentException(String.format("%s inválido: %s. Deve ter no máximo %d dígitos", esquema.getNome(), base, maxDigitos));
+        return n;
+    }
+
+    private static int digito(CharSequence valor, int i) {
+        char c = valor.charAt(i);
+        if (c < '0' || c > '9')
+            throw new IllegalArgumentException(String.format("'%s' contem caracteres não numéricos", valor));
+        return c - '0';
+    }
+
+    /**
+     * Retorna o esquema que originou esta calculadora.
+     * @return O esquema
+     */
+    public EsquemaDV getEsquema() {
+        return esquema;
+    }
+
+    /**
+     * Retorna o número de DVs calculados.
+     * @return O número de DVs
+     */
+    public int getNumDV() {
+        return numDV;
+    }
+
+    /**
+     * Retorna o maior valor base aceito por {@link #calcula(long)}.
+     * @return O maior valor base
+     */
+    public long getMaxBase() {
+        return maxBase;
+    }
+
+    /**
+     * Retorna o número máximo de dígitos do valor base.
+     * @return O número máximo de dígitos
+     */
+    public int getMaxDigitos() {
+        return maxDigitos;
+    }
+}
@@ -0,0 +1,185 @@
+package exemplo.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calendário de dias úteis pré-calculado para uma faixa de anos.
+ * Sábados, domingos e feriados (lidos de um arquivo, ver
+ * {@link #carrega(Reader, int, int)}) são marcados em um mapa de bits indexado
+ * pelo dia (<code>LocalDate.toEpochDay()</code>). Além do mapa são mantidos o
+ * número de dias úteis até cada dia e a lista ordenada dos dias úteis, de modo
+ * que {@link #isDiaUtil(LocalDate)} e {@link #adicionaDiasUteis(LocalDate, int)}
+ * são O(1).
+ * <p>
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public final class CalendarioUteis {
+
+    private final LocalDate primeiro;
+    private final long inicio;
+    private final int numDias;
+    /** Bit ligado para os dias não úteis. */
+    private final long[] naoUteis;
+    /** Número de dias úteis em <code>[inicio, inicio + i)</code>. */
+    private final int[] uteisAntes;
+    /** Os dias úteis, relativos a <code>inicio</code>, em ordem crescente. */
+    private final int[] diasUteis;
+
+    private CalendarioUteis(int anoInicial, int anoFinal, List<MonthDay> fixos, List<LocalDate> datas) {
+        primeiro = LocalDate.of(anoInicial, 1, 1);
+        inicio = primeiro.toEpochDay();
+        numDias = (int) (LocalDate.of(anoFinal + 1, 1, 1).toEpochDay() - inicio);
+        naoUteis = new long[(numDias + 63) >>> 6];
+
+        // 1970-01-01 foi uma quinta-feira
+        for (int i = 0; i < numDias; i++) {
+            int diaSemana = (int) Math.floorMod(inicio + i + 3, 7); // 0 = segunda
+            if (diaSemana >= DayOfWeek.SATURDAY.ordinal()) marca(i);
+        }
+        for (int ano = anoInicial; ano <= anoFinal; ano++) {
+            for (MonthDay md : fixos) {
+                if (md.isValidYear(ano)) marca((int) (md.atYear(ano).toEpochDay() - inicio));
+            }
+        }
+        for (LocalDate d : datas) {
+            long i = d.toEpochDay() - inicio;
+            if (i >= 0 && i < numDias) marca((int) i);
+        }
+
+        uteisAntes = new int[numDias + 1];
+        int total = 0;
+        for (int i = 0; i < numDias; i++) {
+            uteisAntes[i] = total;
+            if (!marcado(i)) total++;
+        }
+        uteisAntes[numDias] = total;
+        diasUteis = new int[total];
+        for (int i = 0, k = 0; i < numDias; i++) {
+            if (!marcado(i)) diasUteis[k++] = i;
+        }
+    }
+
+    private void marca(int i) {
+        naoUteis[i >>> 6] |= 1L << i;
+    }
+
+    private boolean marcado(int i) {
+        return (naoUteis[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Cria o calendário para os anos <code>[anoInicial, anoFinal]</code> lendo
+     * os feriados de <code>feriados</code>. Cada linha contém uma data seguida
+     * opcionalmente de uma descrição: <code>--MM-dd</code> para feriados fixos,
+     * repetidos todos os anos, ou <code>yyyy-MM-dd</code> para uma data
+     * específica. Linhas em branco ou iniciadas por <code>#</code> são ignoradas.
+     * @param feriados O conteúdo do arquivo de feriados
+     * @param anoInicial O primeiro ano do calendário
+     * @param anoFinal O último ano do calendário
+     * @return O calendário
+     * @throws IOException se os feriados não puderem ser lidos
+     * @throws IllegalArgumentException se a faixa de anos ou alguma linha for inválida
+     */
+    public static CalendarioUteis carrega(Reader feriados, int anoInicial, int anoFinal) throws IOException {
+        if (anoFinal < anoInicial || anoFinal - anoInicial > 1000)
+            throw new IllegalArgumentException(String.format("Faixa de anos inválida (%d-%d)", anoInicial, anoFinal));
+        List<MonthDay> fixos = new ArrayList<MonthDay>();
+        List<LocalDate> datas = new ArrayList<LocalDate>();
+        BufferedReader in = new BufferedReader(feriados);
+        String linha;
+        for (int n = 1; (linha = in.readLine()) != null; n++) {
+            linha = linha.trim();
+            if (linha.isEmpty() || linha.charAt(0) == '#') continue;
+            int fim = linha.indexOf(' ');
+            String data = fim < 0 ? linha : linha.substring(0, fim);
+            try {
+                if (data.startsWith("--"))
+                    fixos.add(MonthDay.parse(data));
+                else
+                    datas.add(LocalDate.parse(data));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(String.format("Data inválida na linha %d: %s", n, data), e);
+            }
+        }
+        return new CalendarioUteis(anoInicial, anoFinal, fixos, datas);
+    }
+
+    private int indice(LocalDate data) {
+        long i = data.toEpochDay() - inicio;
+        if (i < 0 || i >= numDias)
+            throw new IllegalArgumentException(String.format("Data (%s) fora do calendário (%s a %s)", data, primeiro, primeiro.plusDays(numDias - 1)));
+        return (int) i;
+    }
+
+    /**
+     * Retorna <code>true</code> se a data for dia útil.
+     * @param data A data
+     * @return <code>true</code> se não for sábado, domingo ou feriado
+     * @throws IllegalArgumentException se a data estiver fora do calendário
+     */
+    public boolean isDiaUtil(LocalDate data) {
+        return !marcado(indice(data));
+    }
+
+    /**
+     * Retorna o <code>n</code>-ésimo dia útil após a data. Com <code>n = 0</code>
+     * retorna a própria data, se for dia útil, ou o próximo dia útil.
+     * @param data A data
+     * @param n O número de dias úteis, não negativo
+     * @return O dia útil
+     * @throws IllegalArgumentException se <code>n</code> for negativo ou o
+     * resultado estiver fora do calendário
+     */
+    public LocalDate adicionaDiasUteis(LocalDate data, int n) {
+        if (n < 0)
+            throw new IllegalArgumentException(String.format("Número de dias úteis inválido (%d)", n));
+        int i = indice(data);
+        // posição, na lista de dias úteis, do primeiro dia útil após a data
+        int k = uteisAntes[i + 1];
+        if (n == 0 && !marcado(i)) return data;
+        int alvo = n == 0 ? k : k + n - 1;
+        if (alvo >= diasUteis.length)
+            throw new IllegalArgumentException(String.format("Resultado fora do calendário (%s + %d dias úteis)", data, n));
+        return LocalDate.ofEpochDay(inicio + diasUteis[alvo]);
+    }
+
+    /**
+     * Retorna o número de dias úteis em <code>[de, ate)</code>.
+     * @param de A data inicial, inclusive
+     * @param ate A data final, exclusive
+     * @return O número de dias úteis
+     * @throws IllegalArgumentException se alguma data estiver fora do calendário
+     */
+    public int contaDiasUteis(LocalDate de, LocalDate ate) {
+        int a = indice(de);
+        int b = ate.toEpochDay() - inicio == numDias ? numDias : indice(ate);
+        return b <= a ? 0 : uteisAntes[b] - uteisAntes[a];
+    }
+
+    /**
+     * Retorna o primeiro dia do calendário.
+     * @return O primeiro dia
+     */
+    public LocalDate getPrimeiroDia() {
+        return primeiro;
+    }
+
+    /**
+     * Retorna o último dia do calendário.
+     * @return O último dia
+     */
+    public LocalDate getUltimoDia() {
+        return primeiro.plusDays(numDias - 1);
+    }
+}
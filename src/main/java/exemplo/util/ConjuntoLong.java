@@ -0,0 +1,144 @@
+package exemplo.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Conjunto de <code>long</code>s primitivos, com endereçamento aberto e
+ * sondagem linear, sem objetos por elemento: cada valor ocupa 8 bytes na
+ * tabela (que fica entre 1/4 e 1/2 ocupada), contra cerca de 50 bytes em um
+ * <code>HashSet&lt;Long&gt;</code>.
+ * <p>
+ * Instâncias podem ser compartilhadas entre threads. As consultas usam
+ * leitura otimista (sem bloqueio) e só obtêm a trava se uma inclusão
+ * ocorrer ao mesmo tempo; as inclusões são serializadas.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class ConjuntoLong {
+
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    /** Marca as posições vazias; o próprio valor zero é guardado à parte. */
+    private static final long VAZIO = 0;
+
+    private final StampedLock trava = new StampedLock();
+    private long[] tabela;
+    private boolean contemZero;
+    private int tamanho;
+
+    /**
+     * Cria o conjunto com capacidade inicial para <code>capacidade</code>
+     * elementos sem redimensionar.
+     * @param capacidade A capacidade inicial
+     */
+    public ConjuntoLong(int capacidade) {
+        if (capacidade < 0)
+            throw new IllegalArgumentException(String.format("Capacidade inválida: %d", capacidade));
+        int n = CAPACIDADE_MINIMA;
+        while (n < 2L * capacidade) n <<= 1;
+        tabela = new long[n];
+    }
+
+    public ConjuntoLong() {
+        this(CAPACIDADE_MINIMA / 2);
+    }
+
+    /**
+     * Espalha os bits do valor (finalizador do MurmurHash3), já que valores
+     * sequenciais ou com dígitos verificadores se concentram nos bits baixos.
+     */
+    private static int espalha(long v) {
+        v ^= v >>> 33;
+        v *= 0xff51afd7ed558ccdL;
+        v ^= v >>> 33;
+        v *= 0xc4ceb9fe1a85ec53L;
+        v ^= v >>> 33;
+        return (int) v;
+    }
+
+    private static boolean procura(long[] t, long valor) {
+        int mascara = t.length - 1;
+        for (int i = espalha(valor) & mascara; ; i = (i + 1) & mascara) {
+            long v = t[i];
+            if (v == valor) return true;
+            if (v == VAZIO) return false;
+        }
+    }
+
+    /**
+     * Retorna <code>true</code> se o valor pertencer ao conjunto.
+     * @param valor O valor
+     * @return <code>true</code> se pertencer
+     */
+    public boolean contem(long valor) {
+        long carimbo = trava.tryOptimisticRead();
+        boolean achado = valor == VAZIO ? contemZero : procura(tabela, valor);
+        if (trava.validate(carimbo)) return achado;
+        carimbo = trava.readLock();
+        try {
+            return valor == VAZIO ? contemZero : procura(tabela, valor);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    /**
+     * Inclui um valor no conjunto.
+     * @param valor O valor
+     * @return <code>false</code> se o valor já pertencia ao conjunto
+     */
+    public boolean adiciona(long valor) {
+        long carimbo = trava.writeLock();
+        try {
+            if (valor == VAZIO) {
+                if (contemZero) return false;
+                contemZero = true;
+                tamanho++;
+                return true;
+            }
+            if (!insere(tabela, valor)) return false;
+            if (++tamanho * 2 > tabela.length) redimensiona();
+            return true;
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    private static boolean insere(long[] t, long valor) {
+        int mascara = t.length - 1;
+        for (int i = espalha(valor) & mascara; ; i = (i + 1) & mascara) {
+            long v = t[i];
+            if (v == valor) return false;
+            if (v == VAZIO) {
+                t[i] = valor;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copia os valores para uma tabela com o dobro do tamanho, publicada
+     * somente depois de preenchida.
+     */
+    private void redimensiona() {
+        long[] nova = new long[tabela.length * 2];
+        for (long v : tabela) {
+            if (v != VAZIO) insere(nova, v);
+        }
+        tabela = nova;
+    }
+
+    /**
+     * Retorna o número de elementos.
+     * @return O número de elementos
+     */
+    public int getTamanho() {
+        long carimbo = trava.readLock();
+        try {
+            return tamanho;
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.math.BigInteger;
  */
 public class DVModulo10 extends DigitoVerificador {
 
+    private static final CalculadoraDV CALCULADORA = CalculadoraDV.modulo10();
+
     public DVModulo10(BigInteger valor) {
         super(valor);
     }
@@ -68,4 +70,34 @@ public class DVModulo10 extends DigitoVerificador {
         return pos % 2 == 0 ? 2 : 1;
     }
 
+    /**
+     * Retorna a calculadora compilada do esquema {@link EsquemaDV#MODULO10}.
+     * @return A calculadora, ou <code>null</code> em classes derivadas
+     */
+    @Override
+    protected CalculadoraDV getCalculadora() {
+        return getClass() == DVModulo10.class ? CALCULADORA : null;
+    }
+
+    /**
+     * Calcula o DV módulo 10 diretamente sobre o valor base <code>long</code>,
+     * sem criar instâncias. O resultado é idêntico a
+     * <code>new DVModulo10(base).getDigito()</code>.
+     * @param base O valor base (não negativo)
+     * @return O DV calculado
+     * @throws IllegalArgumentException se o valor base for negativo
+     */
+    public static int calculaDigito(long base) {
+        return CALCULADORA.calcula(base);
+    }
+
+    /**
+     * Retorna <code>true</code> se o último dígito de <code>numero</code> for o
+     * DV módulo 10 dos demais. Números negativos são inválidos.
+     * @param numero O valor base seguido do DV
+     * @return <code>true</code> se o DV conferir
+     */
+    public static boolean isNumeroValido(long numero) {
+        return CALCULADORA.isValido(numero);
+    }
 }
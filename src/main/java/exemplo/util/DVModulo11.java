@@ -25,6 +25,9 @@ public class DVModulo11 extends DigitoVerificador {
      */
     public static final int DVM11_BARCODE = 1;
 
+    private static final CalculadoraDV CALCULADORA_NORMAL = CalculadoraDV.modulo11();
+    private static final CalculadoraDV CALCULADORA_BARCODE = CalculadoraDV.modulo11Barcode();
+
     /**
      * A variante de cálculo em uso.
      */
@@ -73,6 +76,10 @@ public class DVModulo11 extends DigitoVerificador {
      * @return O DV ajustado
      */
     protected int ajustaDV(int dv) {
+        return ajustaDV(dv, variante);
+    }
+
+    private static int ajustaDV(int dv, int variante) {
         int dvAjustado = dv;
         switch (variante) {
             case DVM11_NORMAL:
@@ -110,4 +117,60 @@ public class DVModulo11 extends DigitoVerificador {
     protected int calculaDV() {
         return ajustaDV(getSomatorio() * 10 % 11);
     }
+
+    /**
+     * Retorna a calculadora compilada do esquema {@link EsquemaDV#MODULO11}
+     * ou {@link EsquemaDV#MODULO11_BARCODE}, de acordo com a variante.
+     * @return A calculadora, ou <code>null</code> em classes derivadas
+     */
+    @Override
+    protected CalculadoraDV getCalculadora() {
+        if (getClass() != DVModulo11.class)
+            return null;
+        switch (variante) {
+            case DVM11_NORMAL:
+                return CALCULADORA_NORMAL;
+            case DVM11_BARCODE:
+                return CALCULADORA_BARCODE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Calcula o DV módulo 11 diretamente sobre o valor base <code>long</code>,
+     * sem criar instâncias. O resultado é idêntico ao de uma instância de
+     * <code>DVModulo11</code> com o mesmo valor base e variante.
+     * @param base O valor base (não negativo)
+     * @param variante {@link #DVM11_NORMAL} ou {@link #DVM11_BARCODE}
+     * @return O DV calculado e ajustado de acordo com a variante
+     * @throws IllegalArgumentException se o valor base for negativo ou a variante for inválida
+     */
+    public static int calculaDigito(long base, int variante) {
+        return calculadora(variante).calcula(base);
+    }
+
+    /**
+     * Retorna <code>true</code> se o último dígito de <code>numero</code> for o
+     * DV módulo 11 dos demais, na variante especificada.
+     * Números negativos são inválidos.
+     * @param numero O valor base seguido do DV
+     * @param variante {@link #DVM11_NORMAL} ou {@link #DVM11_BARCODE}
+     * @return <code>true</code> se o DV conferir
+     * @throws IllegalArgumentException se a variante for inválida
+     */
+    public static boolean isNumeroValido(long numero, int variante) {
+        return calculadora(variante).isValido(numero);
+    }
+
+    private static CalculadoraDV calculadora(int variante) {
+        switch (variante) {
+            case DVM11_NORMAL:
+                return CALCULADORA_NORMAL;
+            case DVM11_BARCODE:
+                return CALCULADORA_BARCODE;
+            default:
+                throw new IllegalArgumentException(String.format("Variante inválida (%d)", variante));
+        }
+    }
 }
@@ -19,6 +19,8 @@ import java.math.BigInteger;
  */
 public class DVModulo11CPF extends DVModulo11 {
 
+    private static final CalculadoraDV CALCULADORA = CalculadoraDV.modulo11CPF();
+
     public DVModulo11CPF(BigInteger valor) {
         super(valor);
     }
@@ -43,4 +45,15 @@ public class DVModulo11CPF extends DVModulo11 {
     protected int getPesoAt(int pos) {
         return pos + 2;
     }
+
+    /**
+     * Retorna a calculadora compilada do esquema {@link EsquemaDV#MODULO11_CPF}
+     * na variante normal.
+     * @return A calculadora, ou <code>null</code> em outras variantes e em
+     * classes derivadas
+     */
+    @Override
+    protected CalculadoraDV getCalculadora() {
+        return getClass() == DVModulo11CPF.class && getVariante() == DVM11_NORMAL ? CALCULADORA : null;
+    }
 }
@@ -0,0 +1,217 @@
+package exemplo.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Diário (<i>journal</i>) local, somente de acréscimo, para registros que
+ * precisam sobreviver a uma queda da aplicação antes de serem gravados no
+ * destino final.
+ * <p>
+ * Cada registro é gravado como <code>int tamanho | int CRC32 | dados</code>.
+ * {@link #grava(byte[])} só retorna depois que o registro está em disco, mas
+ * as sincronizações são agrupadas: enquanto uma thread executa o
+ * <code>force</code>, as que gravaram em seguida aguardam e são cobertas pela
+ * próxima sincronização, de modo que muitas gravações concorrentes custam
+ * poucos <code>fsync</code>s.
+ * <p>
+ * Quando todos os registros gravados, inclusive os lidos na abertura,
+ * forem confirmados pelo consumidor ({@link #confirma(int)}) o arquivo é
+ * truncado; a ordem das confirmações não importa. Na abertura, um registro
+ * final incompleto ou corrompido (queda durante a gravação) é descartado.
+ * <p>
+ * Instâncias podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class Diario implements Closeable {
+
+    /**
+     * Recebe os registros na leitura do diário.
+     */
+    public interface Leitor {
+        /**
+         * Chamado para cada registro, na ordem de gravação.
+         * @param dados Os dados do registro
+         * @throws IOException se o registro não puder ser processado
+         */
+        void registro(byte[] dados) throws IOException;
+    }
+
+    /**
+     * Falha na sincronização com o disco de um registro que já foi
+     * acrescentado ao diário: o registro permanece pendente e será lido na
+     * próxima abertura, se tiver chegado ao disco.
+     */
+    public static class SincronizacaoException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public SincronizacaoException(IOException causa) {
+            super("Registro gravado mas não sincronizado com o disco", causa);
+        }
+    }
+
+    /** Tamanho máximo de um registro. */
+    public static final int TAMANHO_MAXIMO = 1024 * 1024;
+
+    private static final int TAMANHO_CABECALHO = 8;
+
+    private final FileChannel canal;
+    private final Object travaSincronizacao = new Object();
+    /**
+     * As posições são lógicas e nunca diminuem, mesmo após truncar o arquivo:
+     * a posição física é a lógica menos <code>base</code>. Protegido por <code>this</code>.
+     */
+    private long base;
+    /** Fim dos dados gravados no canal; protegido por <code>this</code>. */
+    private long gravado;
+    /** Fim dos dados já sincronizados com o disco. */
+    private volatile long sincronizado;
+    /** Registros gravados e ainda não confirmados; protegido por <code>this</code>. */
+    private long pendentes;
+
+    /**
+     * Abre ou cria o diário.
+     * @param arquivo O arquivo do diário
+     * @throws IOException se o arquivo não puder ser aberto
+     */
+    public Diario(Path arquivo) throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long[] fim = new long[1];
+        percorre(dados -> pendentes++, fim);
+        if (fim[0] < canal.size()) {
+            canal.truncate(fim[0]);
+            canal.force(true);
+        }
+        gravado = fim[0];
+        sincronizado = fim[0];
+    }
+
+    /**
+     * Lê todos os registros íntegros do diário, na ordem de gravação. Deve ser
+     * chamado antes de novas gravações, p. ex. para reprocessar os registros
+     * pendentes após uma queda.
+     * @param leitor Recebe os registros
+     * @throws IOException se o diário não puder ser lido
+     */
+    public void percorre(Leitor leitor) throws IOException {
+        percorre(leitor, new long[1]);
+    }
+
+    /**
+     * Lê os registros e informa em <code>fim[0]</code> a posição seguinte ao
+     * último registro íntegro.
+     */
+    private void percorre(Leitor leitor, long[] fim) throws IOException {
+        long tamanho = canal.size();
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        CRC32 crc = new CRC32();
+        long pos = 0;
+        while (pos + TAMANHO_CABECALHO <= tamanho) {
+            cabecalho.clear();
+            leCompleto(cabecalho, pos);
+            int n = cabecalho.getInt(0);
+            int soma = cabecalho.getInt(4);
+            if (n < 0 || n > TAMANHO_MAXIMO || pos + TAMANHO_CABECALHO + n > tamanho) break;
+            ByteBuffer dados = ByteBuffer.allocate(n);
+            leCompleto(dados, pos + TAMANHO_CABECALHO);
+            crc.reset();
+            crc.update(dados.array(), 0, n);
+            if ((int) crc.getValue() != soma) break;
+            pos += TAMANHO_CABECALHO + n;
+            fim[0] = pos;
+            leitor.registro(dados.array());
+        }
+    }
+
+    private void leCompleto(ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) {
+            if (canal.read(b, pos + b.position()) < 0) throw new IOException("Fim inesperado do diário");
+        }
+    }
+
+    /**
+     * Acrescenta um registro ao diário e aguarda até que ele esteja em disco.
+     * @param dados Os dados do registro
+     * @throws SincronizacaoException se o registro foi acrescentado (e conta
+     * como pendente) mas a sincronização falhou
+     * @throws IOException se o registro não puder ser acrescentado; nesse
+     * caso o diário não é alterado
+     * @throws IllegalArgumentException se o registro for maior que {@link #TAMANHO_MAXIMO}
+     */
+    public void grava(byte[] dados) throws IOException {
+        if (dados.length > TAMANHO_MAXIMO)
+            throw new IllegalArgumentException(String.format("Registro muito grande (%d bytes)", dados.length));
+        CRC32 crc = new CRC32();
+        crc.update(dados, 0, dados.length);
+        ByteBuffer b = ByteBuffer.allocate(TAMANHO_CABECALHO + dados.length);
+        b.putInt(dados.length).putInt((int) crc.getValue()).put(dados).flip();
+        long fim;
+        synchronized (this) {
+            long pos = gravado - base;
+            try {
+                while (b.hasRemaining())
+                    pos += canal.write(b, pos);
+            } catch (IOException e) {
+                // descarta o registro parcial
+                try {
+                    canal.truncate(gravado - base);
+                } catch (IOException t) {
+                    e.addSuppressed(t);
+                }
+                throw e;
+            }
+            gravado = fim = base + pos;
+            pendentes++;
+        }
+        try {
+            sincroniza(fim);
+        } catch (IOException e) {
+            throw new SincronizacaoException(e);
+        }
+    }
+
+    /**
+     * Aguarda até que os dados até <code>fim</code> estejam em disco. Quem
+     * obtém a trava sincroniza tudo o que já foi gravado, cobrindo também as
+     * threads que aguardam.
+     */
+    private void sincroniza(long fim) throws IOException {
+        if (sincronizado >= fim) return;
+        synchronized (travaSincronizacao) {
+            if (sincronizado >= fim) return;
+            long alvo;
+            synchronized (this) {
+                alvo = gravado;
+            }
+            canal.force(false);
+            sincronizado = alvo;
+        }
+    }
+
+    /**
+     * Confirma que registros foram gravados no destino final. Quando todos os
+     * registros estiverem confirmados o diário é truncado.
+     * @param registros O número de registros confirmados
+     * @throws IOException se o diário não puder ser truncado
+     */
+    public synchronized void confirma(int registros) throws IOException {
+        pendentes -= registros;
+        if (pendentes <= 0 && gravado > base) {
+            pendentes = 0;
+            canal.truncate(0);
+            base = gravado;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
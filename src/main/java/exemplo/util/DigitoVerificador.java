@@ -6,6 +6,8 @@ import java.math.BigInteger;
  * Classe genérica para cálculo de dígito verificador.
  * Classes derivadas desta classe calculam dígitos verificadores
  * específicos, p. ex., módulo 11, módulo 10, CPF, CNPJ, etc.
+ * Instâncias são mutáveis e não devem ser compartilhadas entre threads; para
+ * cálculos em beans de aplicação ou campos estáticos use {@link CalculadoraDV}.
  * @author Engeweb Serviços de Internet
  * @author Vitor Yudi Hansen 
  * @version 1.00
@@ -84,8 +86,30 @@ public abstract class DigitoVerificador {
 
     private void inicializaValor(String valor) {
         this.valor = validaValor(valor);
-        calculaSomatorio();
-        dv = calculaDV();
+        CalculadoraDV calculadora = getCalculadora();
+        if (calculadora != null && valor.length() <= calculadora.getMaxDigitos()) {
+            somatorio = -1; // calculado somente se solicitado
+            dv = calculadora.calcula(valor);
+        } else {
+            calculaSomatorio();
+            dv = calculaDV();
+        }
+    }
+
+    /**
+     * Retorna a calculadora compilada usada no cálculo do DV, ou
+     * <code>null</code> para usar os métodos {@link #getPesoAt(int)},
+     * {@link #calculaSomatorio()} e {@link #calculaDV()}.
+     * As classes deste pacote retornam a calculadora do seu esquema, que
+     * dispensa as chamadas virtuais por dígito, somente para instâncias da
+     * própria classe; suas derivadas usam os métodos virtuais, a menos que
+     * sobrecarreguem este método retornando a calculadora do novo esquema.
+     * Valores base maiores que o suportado pela calculadora usam os métodos
+     * virtuais.
+     * @return A calculadora ou <code>null</code>
+     */
+    protected CalculadoraDV getCalculadora() {
+        return null;
     }
 
     /**
@@ -154,7 +178,7 @@ public abstract class DigitoVerificador {
      * @return A representação do valor base como <code>String</code>
      */
     public String getValorString(boolean dv) {
-        String format = String.format("%%s%%0%d", numDV);
+        String format = String.format("%%s%%0%dd", numDV);
         return dv ? String.format(format, valor, getDigito()) : valor;
     }
 
@@ -271,6 +295,8 @@ public abstract class DigitoVerificador {
      * @return O somatório
      */
     public int getSomatorio() {
+        if (somatorio < 0)
+            somatorio = getCalculadora().somatorio(valor);
         return this.somatorio;
     }
 
@@ -7,11 +7,28 @@ import java.math.BigInteger;
  * O CNPJ tem dois dígitos verificadores obtidos aplicando-se duas vezes o
  * algoritmo de modulo 11 usando o critério "normal".
  * No cálculo do segundo dígito concatena-se o primeiro dígito para cálculo.
+ * <p>
+ * Os CNPJs alfanuméricos (a partir de julho de 2026) não podem ser
+ * representados por instâncias desta classe, que trabalha com valores
+ * numéricos; use os métodos estáticos que recebem <code>CharSequence</code>,
+ * <code>char[]</code> ou <code>byte[]</code>.
  *
   * @author Vitor Yudi Hansen 
  */
 public class DigitoVerificadorCNPJ extends DVModulo11 {
 
+    /**
+     * Maior valor base admissível (12 dígitos).
+     */
+    public static final long MAX_VALOR_BASE = 999999999999L;
+
+    /**
+     * Maior número de CNPJ admissível, incluindo os dois DVs (14 dígitos).
+     */
+    public static final long MAX_NUMERO = 99999999999999L;
+
+    private static final CalculadoraDV CALCULADORA = CalculadoraDV.cnpj();
+
     /**
      * Cria uma instância sem valor.
      * Inicializa o número de DVs com 2.
@@ -77,4 +94,89 @@ public class DigitoVerificadorCNPJ extends DVModulo11 {
         int dv2 = dvCPF.getDigito();
         return dv1 * 10 + dv2;
     }
+
+    /**
+     * Retorna a calculadora compilada do esquema {@link EsquemaDV#CNPJ}
+     * na variante normal.
+     * @return A calculadora, ou <code>null</code> em outras variantes e em
+     * classes derivadas
+     */
+    @Override
+    protected CalculadoraDV getCalculadora() {
+        return getClass() == DigitoVerificadorCNPJ.class && getVariante() == DVM11_NORMAL ? CALCULADORA : null;
+    }
+
+    /**
+     * Calcula os dois dígitos verificadores do CNPJ diretamente sobre o valor
+     * base <code>long</code>, sem conversão para <code>String</code>, sem
+     * expressões regulares e sem criar instâncias. O resultado é idêntico a
+     * <code>new DigitoVerificadorCNPJ(base).getDigito()</code>.
+     * @param base O valor base, com no máximo 12 dígitos
+     * @return Os dois dígitos verificadores, p. ex., 81 para o DV "81"
+     * @throws IllegalArgumentException se o valor base for negativo ou tiver mais de 12 dígitos
+     */
+    public static int calculaDigito(long base) {
+        return CALCULADORA.calcula(base);
+    }
+
+    /**
+     * Retorna <code>true</code> se o número completo do CNPJ (valor base seguido
+     * dos dois DVs) for válido. Não lança exceção: números negativos ou com
+     * mais de 14 dígitos são simplesmente inválidos.
+     * @param numero O CNPJ completo
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public static boolean isNumeroValido(long numero) {
+        return CALCULADORA.isValido(numero);
+    }
+
+    /**
+     * Calcula os dois dígitos verificadores de um CNPJ alfanumérico.
+     * O valor base deve ter 12 caracteres, dígitos ou letras maiúsculas, sem
+     * máscara. Para CNPJs numéricos o resultado é igual ao de
+     * {@link #calculaDigito(long)}.
+     * @param base O valor base, p. ex. "12ABC34501DE"
+     * @return Os dois dígitos verificadores
+     * @throws IllegalArgumentException se o valor base for inválido
+     */
+    public static int calculaDigito(CharSequence base) {
+        return CALCULADORA.calculaAlfanumerico(base);
+    }
+
+    /**
+     * Retorna <code>true</code> se o CNPJ, numérico ou alfanumérico, for válido.
+     * São aceitos CNPJs com ou sem máscara, p. ex. "12ABC34501DE35" ou
+     * "12.ABC.345/01DE-35". O CNPJ deve ter os 14 caracteres, inclusive os
+     * zeros à esquerda.
+     * @param cnpj O CNPJ completo
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public static boolean isNumeroValido(CharSequence cnpj) {
+        return CALCULADORA.isValidoAlfanumerico(cnpj);
+    }
+
+    /**
+     * Retorna <code>true</code> se o CNPJ contido em <code>chars[inicio, fim)</code> for válido.
+     * @param chars Os caracteres
+     * @param inicio Índice do primeiro caractere
+     * @param fim Índice seguinte ao último caractere
+     * @return <code>true</code> se os DVs conferirem
+     * @see #isNumeroValido(CharSequence)
+     */
+    public static boolean isNumeroValido(char[] chars, int inicio, int fim) {
+        return CALCULADORA.isValidoAlfanumerico(chars, inicio, fim);
+    }
+
+    /**
+     * Retorna <code>true</code> se o CNPJ, em ASCII, contido em
+     * <code>bytes[inicio, fim)</code> for válido.
+     * @param bytes Os bytes
+     * @param inicio Índice do primeiro byte
+     * @param fim Índice seguinte ao último byte
+     * @return <code>true</code> se os DVs conferirem
+     * @see #isNumeroValido(CharSequence)
+     */
+    public static boolean isNumeroValido(byte[] bytes, int inicio, int fim) {
+        return CALCULADORA.isValidoAlfanumerico(bytes, inicio, fim);
+    }
 }
@@ -14,6 +14,18 @@ import java.math.BigInteger;
  */
 public class DigitoVerificadorCPF extends DVModulo11CPF {
 
+    /**
+     * Maior valor base admissível (9 dígitos).
+     */
+    public static final long MAX_VALOR_BASE = 999999999L;
+
+    /**
+     * Maior número de CPF admissível, incluindo os dois DVs (11 dígitos).
+     */
+    public static final long MAX_NUMERO = 99999999999L;
+
+    private static final CalculadoraDV CALCULADORA = CalculadoraDV.cpf();
+
     /**
      * Cria uma instância com valor base do tipo <code>BigInteger</code>.
      * Inicializa o número de DVs com 2.
@@ -79,4 +91,39 @@ public class DigitoVerificadorCPF extends DVModulo11CPF {
         int dv2 = dvCPF.getDigito();
         return dv1 * 10 + dv2;
     }
+
+    /**
+     * Retorna a calculadora compilada do esquema {@link EsquemaDV#CPF}
+     * na variante normal.
+     * @return A calculadora, ou <code>null</code> em outras variantes e em
+     * classes derivadas
+     */
+    @Override
+    protected CalculadoraDV getCalculadora() {
+        return getClass() == DigitoVerificadorCPF.class && getVariante() == DVM11_NORMAL ? CALCULADORA : null;
+    }
+
+    /**
+     * Calcula os dois dígitos verificadores do CPF diretamente sobre o valor
+     * base <code>long</code>, sem conversão para <code>String</code>, sem
+     * expressões regulares e sem criar instâncias. O resultado é idêntico a
+     * <code>new DigitoVerificadorCPF(base).getDigito()</code>.
+     * @param base O valor base, com no máximo 9 dígitos
+     * @return Os dois dígitos verificadores, p. ex., 35 para o DV "35"
+     * @throws IllegalArgumentException se o valor base for negativo ou tiver mais de 9 dígitos
+     */
+    public static int calculaDigito(long base) {
+        return CALCULADORA.calcula(base);
+    }
+
+    /**
+     * Retorna <code>true</code> se o número completo do CPF (valor base seguido
+     * dos dois DVs) for válido. Não lança exceção: números negativos ou com
+     * mais de 11 dígitos são simplesmente inválidos.
+     * @param numero O CPF completo, p. ex., 12345678909
+     * @return <code>true</code> se os DVs conferirem
+     */
+    public static boolean isNumeroValido(long numero) {
+        return CALCULADORA.isValido(numero);
+    }
 }
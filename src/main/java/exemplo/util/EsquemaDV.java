@@ -0,0 +1,247 @@
+package exemplo.util;
+
+import java.util.Arrays;
+
+/**
+ * Especificação declarativa de um esquema de dígito verificador.
+ * Um esquema é descrito pelos pesos de cada posição, pela regra de redução
+ * da parcela, pelo módulo, pela forma de obter o DV a partir do resto, pelo
+ * ajuste dos DVs 0 e 10 e pelo número de DVs. A especificação é compilada por
+ * {@link #compila()} em uma {@link CalculadoraDV} imutável, que usa tabelas
+ * pré-calculadas em vez de chamadas virtuais a <code>getPesoAt</code>.
+ * <p>
+ * Os pesos são informados da direita para a esquerda, isto é, o primeiro peso
+ * se aplica à posição 0 (o dígito menos significativo). Pode-se informar um
+ * array de pesos por DV; se houver apenas um, ele é usado em todos os DVs.
+ * No cálculo do segundo DV o valor considerado é o valor base seguido do
+ * primeiro DV, que ocupa a posição 0.
+ * <p>
+ * Novos esquemas podem ser definidos como dados, p. ex.:
+ * <pre>
+ * EsquemaDV pis = new EsquemaDV("PIS/PASEP", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+ *     Reducao.NENHUMA, true, 10, 1, new int[] {2, 3, 4, 5, 6, 7, 8, 9});
+ * </pre>
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ * @see CalculadoraDV
+ */
+public final class EsquemaDV {
+
+    /**
+     * Regra de redução aplicada à parcela digito x peso.
+     */
+    public enum Reducao {
+        /** A parcela é somada sem alteração. */
+        NENHUMA,
+        /** Parcelas maiores que 9 são substituídas pela soma dos seus dígitos (módulo 10). */
+        SOMA_DIGITOS
+    }
+
+    /**
+     * Forma de obter o DV a partir do resto da divisão do somatório pelo módulo.
+     */
+    public enum Calculo {
+        /** O DV é <code>modulo - resto</code>, ou 0 se o resto for 0. */
+        COMPLEMENTO,
+        /** O DV é o próprio resto. */
+        RESTO
+    }
+
+    /**
+     * Ajuste aplicado ao DV quando ele não é um único dígito.
+     */
+    public enum Ajuste {
+        /** DVs maiores que 9 são substituídos por 0 ({@link DVModulo11#DVM11_NORMAL}). */
+        NORMAL,
+        /** DVs 0 e maiores que 9 são substituídos por 1 ({@link DVModulo11#DVM11_BARCODE}). */
+        BARCODE
+    }
+
+    /**
+     * Número máximo de dígitos do valor base nos esquemas genéricos
+     * (suficiente para o código de barras de bloquetos, com 43 dígitos).
+     */
+    public static final int MAX_DIGITOS_GENERICO = 64;
+
+    private static final int[] PESOS_MODULO10 = {2, 1};
+    private static final int[] PESOS_MODULO11 = {2, 3, 4, 5, 6, 7, 8, 9};
+
+    /** Módulo 10 com pesos 2 e 1 alternados, como em {@link DVModulo10}. */
+    public static final EsquemaDV MODULO10 = new EsquemaDV("Módulo 10", 10, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.SOMA_DIGITOS, true, MAX_DIGITOS_GENERICO, 1, PESOS_MODULO10);
+
+    /** Módulo 11 com pesos de 2 a 9, variante normal, como em {@link DVModulo11}. */
+    public static final EsquemaDV MODULO11 = new EsquemaDV("Módulo 11", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, true, MAX_DIGITOS_GENERICO, 1, PESOS_MODULO11);
+
+    /** Módulo 11 com pesos de 2 a 9, variante código de barras, como em {@link DVModulo11}. */
+    public static final EsquemaDV MODULO11_BARCODE = new EsquemaDV("Módulo 11 (código de barras)", 11, Calculo.COMPLEMENTO, Ajuste.BARCODE,
+            Reducao.NENHUMA, true, MAX_DIGITOS_GENERICO, 1, PESOS_MODULO11);
+
+    /** Módulo 11 com pesos sempre crescentes a partir de 2, como em {@link DVModulo11CPF}. */
+    public static final EsquemaDV MODULO11_CPF = new EsquemaDV("Módulo 11 (RFB)", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, false, MAX_DIGITOS_GENERICO, 1, pesosCrescentes(2, MAX_DIGITOS_GENERICO));
+
+    /** CPF: 9 dígitos e 2 DVs, como em {@link DigitoVerificadorCPF}. */
+    public static final EsquemaDV CPF = new EsquemaDV("CPF", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, false, 9, 2, pesosCrescentes(2, 10));
+
+    /** CNPJ: 12 dígitos e 2 DVs, como em {@link DigitoVerificadorCNPJ}. */
+    public static final EsquemaDV CNPJ = new EsquemaDV("CNPJ", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, true, 12, 2, PESOS_MODULO11);
+
+    /** PIS/PASEP/NIT: 10 dígitos e 1 DV, pesos 3298765432 da esquerda para a direita. */
+    public static final EsquemaDV PIS_PASEP = new EsquemaDV("PIS/PASEP", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, true, 10, 1, PESOS_MODULO11);
+
+    /** RENAVAM: 10 dígitos e 1 DV, pesos 3298765432 da esquerda para a direita. */
+    public static final EsquemaDV RENAVAM = new EsquemaDV("RENAVAM", 11, Calculo.COMPLEMENTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, true, 10, 1, PESOS_MODULO11);
+
+    /**
+     * Título de eleitor: 8 dígitos sequenciais seguidos de 2 dígitos da UF e 2 DVs.
+     * O primeiro DV considera somente os dígitos sequenciais (pesos 2 a 9 da
+     * esquerda para a direita); o segundo, os dígitos da UF e o primeiro DV
+     * (pesos 7, 8 e 9). O DV é o resto da divisão por 11, com 10 substituído por 0.
+     * A exceção aplicada aos títulos de SP e MG (resto 0 resulta em DV 1) não é
+     * tratada por este esquema.
+     */
+    public static final EsquemaDV TITULO_ELEITOR = new EsquemaDV("Título de eleitor", 11, Calculo.RESTO, Ajuste.NORMAL,
+            Reducao.NENHUMA, false, 10, 2, new int[] {0, 0, 9, 8, 7, 6, 5, 4, 3, 2}, new int[] {9, 8, 7});
+
+    private final String nome;
+    private final int modulo;
+    private final Calculo calculo;
+    private final Ajuste ajuste;
+    private final Reducao reducao;
+    private final boolean ciclico;
+    private final int maxDigitos;
+    private final int numDV;
+    private final int[][] pesos;
+
+    /**
+     * Cria a especificação de um esquema de DV.
+     * @param nome Nome do esquema, usado em mensagens
+     * @param modulo O módulo (p. ex. 10 ou 11)
+     * @param calculo Como obter o DV a partir do resto
+     * @param ajuste O ajuste aplicado a DVs que não são um único dígito
+     * @param reducao A redução aplicada a cada parcela
+     * @param ciclico Se <code>true</code> os pesos se repetem além do fim do array;
+     * caso contrário as posições além do fim do array têm peso 0
+     * @param maxDigitos Número máximo de dígitos do valor base
+     * @param numDV Número de DVs (1 ou 2)
+     * @param pesos Os pesos da direita para a esquerda, um array por DV ou um único array para todos
+     * @throws IllegalArgumentException se algum parâmetro for inválido
+     */
+    public EsquemaDV(String nome, int modulo, Calculo calculo, Ajuste ajuste, Reducao reducao,
+            boolean ciclico, int maxDigitos, int numDV, int[]... pesos) {
+        if (modulo < 2)
+            throw new IllegalArgumentException(String.format("Módulo inválido (%d)", modulo));
+        if (numDV < 1 || numDV > 2)
+            throw new IllegalArgumentException(String.format("Número de dígitos verificadores inválido (%d)", numDV));
+        if (maxDigitos < 1)
+            throw new IllegalArgumentException(String.format("Número máximo de dígitos inválido (%d)", maxDigitos));
+        if (pesos.length != 1 && pesos.length != numDV)
+            throw new IllegalArgumentException(String.format("Informe 1 ou %d arrays de pesos", numDV));
+        this.nome = nome;
+        this.modulo = modulo;
+        this.calculo = calculo;
+        this.ajuste = ajuste;
+        this.reducao = reducao;
+        this.ciclico = ciclico;
+        this.maxDigitos = maxDigitos;
+        this.numDV = numDV;
+        this.pesos = new int[numDV][];
+        for (int k = 0; k < numDV; k++) {
+            int[] p = pesos[pesos.length == 1 ? 0 : k];
+            if (p.length == 0)
+                throw new IllegalArgumentException("Array de pesos vazio");
+            this.pesos[k] = p.clone();
+        }
+    }
+
+    /**
+     * Gera <code>n</code> pesos crescentes a partir de <code>inicio</code>.
+     * @param inicio O peso da posição 0
+     * @param n O número de pesos
+     * @return Os pesos <code>inicio, inicio + 1, ...</code>
+     */
+    public static int[] pesosCrescentes(int inicio, int n) {
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++)
+            p[i] = inicio + i;
+        return p;
+    }
+
+    /**
+     * Compila o esquema em uma calculadora imutável baseada em tabelas.
+     * @return A calculadora
+     */
+    public CalculadoraDV compila() {
+        return new CalculadoraDV(this);
+    }
+
+    /**
+     * Retorna o peso aplicado na posição especificada no cálculo de um DV.
+     * @param indiceDV O DV, a partir de 0
+     * @param pos A posição, da direita para a esquerda
+     * @return O peso
+     */
+    public int getPeso(int indiceDV, int pos) {
+        int[] p = pesos[indiceDV];
+        if (pos < p.length) return p[pos];
+        return ciclico ? p[pos % p.length] : 0;
+    }
+
+    /**
+     * Aplica a redução à parcela digito x peso.
+     * @param parcela A parcela
+     * @return A parcela reduzida
+     */
+    int reduz(int parcela) {
+        if (reducao == Reducao.SOMA_DIGITOS) {
+            while (parcela > 9)
+                parcela = parcela / 10 + parcela % 10;
+        }
+        return parcela;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public int getModulo() {
+        return modulo;
+    }
+
+    public Calculo getCalculo() {
+        return calculo;
+    }
+
+    public Ajuste getAjuste() {
+        return ajuste;
+    }
+
+    public Reducao getReducao() {
+        return reducao;
+    }
+
+    public boolean isCiclico() {
+        return ciclico;
+    }
+
+    public int getMaxDigitos() {
+        return maxDigitos;
+    }
+
+    public int getNumDV() {
+        return numDV;
+    }
+
+    @Override
+    public String toString() {
+        return "EsquemaDV[" + nome + ", modulo=" + modulo + ", " + calculo + ", " + ajuste + ", " + reducao
+                + ", numDV=" + numDV + ", pesos=" + Arrays.deepToString(pesos) + "]";
+    }
+}
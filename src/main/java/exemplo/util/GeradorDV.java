@@ -0,0 +1,172 @@
+package exemplo.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Gera, em ordem crescente, todos os números válidos (valor base seguido dos
+ * DVs) de uma faixa de valores base, p. ex. CPFs sintéticos para testes de carga.
+ * <p>
+ * Em vez de recalcular todos os dígitos a cada valor, os somatórios são
+ * atualizados incrementalmente: ao somar 1 ao valor base só mudam os dígitos
+ * do "vai um", cujas parcelas são trocadas nas tabelas da {@link CalculadoraDV}.
+ * O custo médio é de pouco mais de uma posição por número gerado.
+ * <p>
+ * A sequência é um <code>Spliterator.OfLong</code> divisível, portanto pode ser
+ * gerada em paralelo:
+ * <pre>
+ * long[] cpfs = GeradorDV.sequencia(CalculadoraDV.cpf(), 0, 10000000).parallel().toArray();
+ * </pre>
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public final class GeradorDV {
+
+    /**
+     * Tamanho mínimo de uma faixa para que ela seja dividida.
+     */
+    private static final long TAMANHO_MINIMO_DIVISAO = 4096;
+
+    private GeradorDV() {
+    }
+
+    /**
+     * Retorna um stream sequencial com os números válidos cujo valor base
+     * está em <code>[de, ate)</code>.
+     * @param calculadora A calculadora do esquema, numérica
+     * @param de O primeiro valor base, inclusive
+     * @param ate O último valor base, exclusive
+     * @return Os números completos (valor base seguido dos DVs), em ordem crescente
+     * @throws IllegalArgumentException se a faixa for inválida para o esquema
+     */
+    public static LongStream sequencia(CalculadoraDV calculadora, long de, long ate) {
+        return StreamSupport.longStream(spliterator(calculadora, de, ate), false);
+    }
+
+    /**
+     * Retorna um spliterator com os números válidos cujo valor base está em
+     * <code>[de, ate)</code>.
+     * @param calculadora A calculadora do esquema, numérica
+     * @param de O primeiro valor base, inclusive
+     * @param ate O último valor base, exclusive
+     * @return O spliterator
+     * @throws IllegalArgumentException se a faixa for inválida para o esquema
+     */
+    public static Spliterator.OfLong spliterator(CalculadoraDV calculadora, long de, long ate) {
+        long divisor = 1;
+        for (int k = 0; k < calculadora.getNumDV(); k++)
+            divisor *= 10;
+        long maximo = Math.min(calculadora.getMaxBase(), Long.MAX_VALUE / divisor - 1);
+        if (de < 0 || de > ate || ate - 1 > maximo)
+            throw new IllegalArgumentException(String.format("Faixa inválida [%d, %d) para %s", de, ate, calculadora.getEsquema().getNome()));
+        return new Sequencia(calculadora, divisor, de, ate);
+    }
+
+    /**
+     * Percorre os valores base de uma faixa mantendo os dígitos e os somatórios
+     * do valor corrente.
+     */
+    private static final class Sequencia implements Spliterator.OfLong {
+        private final CalculadoraDV calculadora;
+        private final long divisor;
+        private long atual;
+        private long fim;
+        /** Dígitos do valor corrente, da direita para a esquerda. */
+        private final int[] digitos;
+        private int s1;
+        private int s2;
+
+        Sequencia(CalculadoraDV calculadora, long divisor, long de, long ate) {
+            this.calculadora = calculadora;
+            this.divisor = divisor;
+            this.fim = ate;
+            this.digitos = new int[Math.min(calculadora.getMaxDigitos(), 19)];
+            posiciona(de);
+        }
+
+        /**
+         * Posiciona no valor base especificado, calculando dígitos e somatórios.
+         */
+        private void posiciona(long valor) {
+            atual = valor;
+            s1 = 0;
+            s2 = 0;
+            Arrays.fill(digitos, 0);
+            for (int pos = 0; valor > 0; pos++, valor /= 10) {
+                int d = (int) (valor % 10);
+                digitos[pos] = d;
+                s1 += calculadora.parcela1(pos, d);
+                s2 += calculadora.parcela2(pos, d);
+            }
+        }
+
+        /**
+         * Avança para o próximo valor base, atualizando somente as posições
+         * alteradas pelo "vai um".
+         */
+        private void incrementa() {
+            atual++;
+            for (int pos = 0; ; pos++) {
+                int d = digitos[pos];
+                int novo = d == 9 ? 0 : d + 1;
+                s1 += calculadora.parcela1(pos, novo) - calculadora.parcela1(pos, d);
+                s2 += calculadora.parcela2(pos, novo) - calculadora.parcela2(pos, d);
+                digitos[pos] = novo;
+                if (novo != 0) break;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer acao) {
+            if (atual >= fim) return false;
+            long numero = atual * divisor + calculadora.combina(s1, s2);
+            if (atual + 1 < fim) incrementa();
+            else atual++;
+            acao.accept(numero);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer acao) {
+            if (atual >= fim) return;
+            long ultimo = fim - 1;
+            while (atual < ultimo) {
+                acao.accept(atual * divisor + calculadora.combina(s1, s2));
+                incrementa();
+            }
+            acao.accept(atual * divisor + calculadora.combina(s1, s2));
+            atual = fim;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long n = fim - atual;
+            if (n < 2 * TAMANHO_MINIMO_DIVISAO) return null;
+            long meio = atual + n / 2;
+            Sequencia prefixo = new Sequencia(calculadora, divisor, atual, meio);
+            // este spliterator fica com a segunda metade
+            posiciona(meio);
+            return prefixo;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fim - atual;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package exemplo.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Gera números de referência únicos com DV, p. ex. para a GRU.
+ * Os valores base são obtidos em blocos reservados de uma {@link FonteBlocos}
+ * (normalmente uma sequence do banco) e distribuídos sem bloqueio: cada
+ * chamada de {@link #proxima()} apenas incrementa o cursor atômico do bloco
+ * corrente. A fonte só é consultada uma vez por bloco e, ao restar um quarto
+ * do bloco, o próximo já é reservado antecipadamente, de modo que as threads
+ * normalmente não esperam pelo banco.
+ * <p>
+ * Como cada bloco é reservado atomicamente na fonte, vários nós da aplicação
+ * podem usar a mesma fonte sem gerar números repetidos. Números de blocos
+ * não esgotados (p. ex. ao reiniciar a aplicação) são descartados, portanto a
+ * sequência gerada pode ter lacunas.
+ * <p>
+ * Instâncias podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class GeradorReferencia {
+
+    /**
+     * Reserva blocos de valores base.
+     */
+    public interface FonteBlocos {
+        /**
+         * Reserva um novo bloco e retorna o seu primeiro valor base.
+         * Blocos reservados nunca devem se sobrepor, mesmo entre nós distintos.
+         * @return O primeiro valor base do bloco, não negativo
+         */
+        long reservaBloco();
+    }
+
+    /**
+     * Um bloco reservado <code>[cursor, fim)</code>.
+     */
+    private static final class Bloco {
+        final AtomicLong cursor;
+        final long fim;
+
+        Bloco(long inicio, long fim) {
+            this.cursor = new AtomicLong(inicio);
+            this.fim = fim;
+        }
+    }
+
+    private final FonteBlocos fonte;
+    private final int tamanhoBloco;
+    private final CalculadoraDV calculadora;
+    private final long multiplicador;
+    private final long maxBase;
+    /** Restante do bloco corrente em que o próximo é reservado. */
+    private final long limiteAntecipacao;
+
+    private final AtomicReference<Bloco> atual = new AtomicReference<Bloco>(new Bloco(0, 0));
+    private final AtomicReference<Bloco> reserva = new AtomicReference<Bloco>();
+    private final AtomicBoolean reservando = new AtomicBoolean();
+
+    /**
+     * Cria um gerador.
+     * @param fonte A fonte dos blocos
+     * @param tamanhoBloco O número de valores base de cada bloco
+     * @param calculadora A calculadora do DV
+     * @throws IllegalArgumentException se o tamanho do bloco não for positivo
+     */
+    public GeradorReferencia(FonteBlocos fonte, int tamanhoBloco, CalculadoraDV calculadora) {
+        if (tamanhoBloco <= 0)
+            throw new IllegalArgumentException(String.format("Tamanho de bloco inválido (%d)", tamanhoBloco));
+        this.fonte = fonte;
+        this.tamanhoBloco = tamanhoBloco;
+        this.calculadora = calculadora;
+        long m = 1;
+        for (int k = 0; k < calculadora.getNumDV(); k++)
+            m *= 10;
+        this.multiplicador = m;
+        this.maxBase = Math.min(calculadora.getMaxBase(), (Long.MAX_VALUE - (m - 1)) / m);
+        this.limiteAntecipacao = Math.max(1, tamanhoBloco / 4);
+    }
+
+    /**
+     * Retorna um novo número de referência: o valor base seguido do(s) DV(s).
+     * @return O número de referência
+     * @throws IllegalStateException se a fonte retornar um valor base inválido
+     * @throws RuntimeException a exceção da fonte, se não for possível reservar um bloco
+     */
+    public long proxima() {
+        for (;;) {
+            Bloco b = atual.get();
+            long base = b.cursor.getAndIncrement();
+            if (base < b.fim) {
+                // o cursor passa uma única vez por este valor
+                if (b.fim - base == limiteAntecipacao) antecipa();
+                return base * multiplicador + calculadora.calcula(base);
+            }
+            Bloco r = reserva.get();
+            if (r != null && r != b) {
+                if (atual.compareAndSet(b, r)) reserva.compareAndSet(r, null);
+            } else if (reservando.compareAndSet(false, true)) {
+                try {
+                    if (atual.get() == b && reserva.get() == null)
+                        atual.compareAndSet(b, novoBloco());
+                } finally {
+                    reservando.set(false);
+                }
+            } else {
+                // outra thread está reservando um bloco
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Reserva o próximo bloco antes do esgotamento do corrente. Erros são
+     * ignorados: a reserva é refeita quando o bloco corrente se esgotar.
+     */
+    private void antecipa() {
+        if (!reservando.compareAndSet(false, true)) return;
+        try {
+            if (reserva.get() == null) reserva.set(novoBloco());
+        } catch (RuntimeException e) {
+            // tenta novamente ao esgotar o bloco corrente
+        } finally {
+            reservando.set(false);
+        }
+    }
+
+    private Bloco novoBloco() {
+        long inicio = fonte.reservaBloco();
+        if (inicio < 0 || inicio > maxBase - tamanhoBloco + 1)
+            throw new IllegalStateException(String.format("Valor base inválido (%d) para %s", inicio, calculadora.getEsquema().getNome()));
+        return new Bloco(inicio, inicio + tamanhoBloco);
+    }
+
+    public int getTamanhoBloco() {
+        return tamanhoBloco;
+    }
+}
@@ -0,0 +1,327 @@
+package exemplo.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Índice local de endereços por CEP, mapeado em memória.
+ * <p>
+ * O arquivo é gerado por {@link #gera(Reader, Path)} e contém um cabeçalho
+ * seguido de registros de tamanho fixo ordenados pelo CEP inicial:
+ * <pre>
+ * cabeçalho:  "CEP1" | int número de registros
+ * registro:   int CEP inicial | int CEP final | UF (2) | logradouro (72)
+ *             | bairro (50) | cidade (40)
+ * </pre>
+ * Os textos são gravados em ISO-8859-1, completados com espaços. Cada
+ * registro cobre a faixa <code>[CEP inicial, CEP final]</code>: um único CEP
+ * (logradouros e grandes usuários) ou uma faixa (localidades com CEP único).
+ * As faixas não se sobrepõem.
+ * <p>
+ * {@link #busca(int)} faz uma busca binária diretamente sobre o arquivo
+ * mapeado, sem alocar objetos; os campos do registro encontrado são obtidos
+ * depois, copiados para um <code>char[]</code> ou como <code>String</code>.
+ * <p>
+ * Instâncias podem ser compartilhadas entre threads; somente leituras
+ * absolutas são feitas no buffer.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public final class IndiceCEP implements Closeable {
+
+    /**
+     * Os campos texto de um registro.
+     */
+    public enum Campo {
+        UF(8, 2),
+        LOGRADOURO(10, 72),
+        BAIRRO(82, 50),
+        CIDADE(132, 40);
+
+        private final int deslocamento;
+        private final int tamanho;
+
+        private Campo(int deslocamento, int tamanho) {
+            this.deslocamento = deslocamento;
+            this.tamanho = tamanho;
+        }
+
+        /**
+         * Retorna o tamanho máximo do campo, em caracteres.
+         * @return O tamanho
+         */
+        public int getTamanho() {
+            return tamanho;
+        }
+    }
+
+    /** O maior CEP válido. */
+    public static final int MAX_CEP = 99999999;
+
+    private static final int MAGICO = ('C' << 24) | ('E' << 16) | ('P' << 8) | '1';
+    private static final int TAMANHO_CABECALHO = 8;
+    private static final int TAMANHO_REGISTRO = 172;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer buf;
+    private final int numRegistros;
+
+    private IndiceCEP(FileChannel canal) throws IOException {
+        this.canal = canal;
+        long tamanho = canal.size();
+        if (tamanho < TAMANHO_CABECALHO)
+            throw new IOException("Arquivo de CEPs inválido");
+        buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+        if (buf.getInt(0) != MAGICO)
+            throw new IOException("Arquivo de CEPs inválido");
+        numRegistros = buf.getInt(4);
+        if (numRegistros < 0 || TAMANHO_CABECALHO + (long) numRegistros * TAMANHO_REGISTRO != tamanho)
+            throw new IOException(String.format("Arquivo de CEPs truncado (%d registros, %d bytes)", numRegistros, tamanho));
+    }
+
+    /**
+     * Abre um índice gerado por {@link #gera(Reader, Path)}.
+     * @param arquivo O arquivo do índice
+     * @return O índice
+     * @throws IOException se o arquivo não puder ser lido ou for inválido
+     */
+    public static IndiceCEP abre(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            return new IndiceCEP(canal);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private int posicao(int registro) {
+        return TAMANHO_CABECALHO + registro * TAMANHO_REGISTRO;
+    }
+
+    /**
+     * Busca o registro que contém o CEP.
+     * @param cep O CEP, com 8 dígitos
+     * @return O índice do registro, ou -1 se o CEP não existir
+     */
+    public int busca(int cep) {
+        if (cep < 0 || cep > MAX_CEP) return -1;
+        // último registro com CEP inicial <= cep
+        int baixo = 0;
+        int alto = numRegistros - 1;
+        int achado = -1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (buf.getInt(posicao(meio)) <= cep) {
+                achado = meio;
+                baixo = meio + 1;
+            } else {
+                alto = meio - 1;
+            }
+        }
+        return achado >= 0 && cep <= buf.getInt(posicao(achado) + 4) ? achado : -1;
+    }
+
+    /**
+     * Retorna <code>true</code> se o CEP existir no índice.
+     * @param cep O CEP
+     * @return <code>true</code> se existir
+     */
+    public boolean contem(int cep) {
+        return busca(cep) >= 0;
+    }
+
+    /**
+     * Copia um campo do registro para <code>destino</code>, sem os espaços finais.
+     * @param registro O índice do registro
+     * @param campo O campo
+     * @param destino O array de destino, com pelo menos {@link Campo#getTamanho()} posições a partir de <code>inicio</code>
+     * @param inicio O índice inicial no destino
+     * @return O número de caracteres copiados
+     */
+    public int copia(int registro, Campo campo, char[] destino, int inicio) {
+        int p = posicao(registro) + campo.deslocamento;
+        int n = campo.tamanho;
+        while (n > 0 && buf.get(p + n - 1) == ' ') n--;
+        for (int i = 0; i < n; i++)
+            destino[inicio + i] = (char) (buf.get(p + i) & 0xFF);
+        return n;
+    }
+
+    /**
+     * Retorna um campo do registro, sem os espaços finais.
+     * @param registro O índice do registro
+     * @param campo O campo
+     * @return O valor do campo
+     */
+    public String get(int registro, Campo campo) {
+        char[] c = new char[campo.tamanho];
+        return new String(c, 0, copia(registro, campo, c, 0));
+    }
+
+    /**
+     * Retorna o CEP inicial da faixa do registro.
+     * @param registro O índice do registro
+     * @return O CEP inicial
+     */
+    public int getCEPInicial(int registro) {
+        return buf.getInt(posicao(registro));
+    }
+
+    /**
+     * Retorna o CEP final da faixa do registro.
+     * @param registro O índice do registro
+     * @return O CEP final
+     */
+    public int getCEPFinal(int registro) {
+        return buf.getInt(posicao(registro) + 4);
+    }
+
+    public int getNumRegistros() {
+        return numRegistros;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Gera o arquivo do índice a partir de um texto com um registro por linha
+     * no formato <code>CEP inicial;CEP final;UF;logradouro;bairro;cidade</code>.
+     * O CEP final pode ficar vazio para um único CEP. Linhas em branco ou
+     * iniciadas por <code>#</code> são ignoradas. Textos maiores que os campos
+     * são truncados. O índice é gravado em um arquivo temporário no mesmo
+     * diretório, que substitui o destino somente se a geração for concluída.
+     * @param registros O texto dos registros, em qualquer ordem
+     * @param destino O arquivo a ser gerado
+     * @return O número de registros gravados
+     * @throws IOException se houver erro de leitura ou gravação
+     * @throws IllegalArgumentException se alguma linha for inválida ou houver faixas sobrepostas
+     */
+    public static int gera(Reader registros, Path destino) throws IOException {
+        List<String[]> linhas = new ArrayList<String[]>();
+        BufferedReader in = new BufferedReader(registros);
+        String linha;
+        for (int n = 1; (linha = in.readLine()) != null; n++) {
+            if (linha.trim().isEmpty() || linha.charAt(0) == '#') continue;
+            String[] campos = linha.split(";", -1);
+            int inicial;
+            int fim;
+            try {
+                if (campos.length != 6) throw new NumberFormatException();
+                inicial = leCEP(campos[0]);
+                fim = campos[1].trim().isEmpty() ? inicial : leCEP(campos[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Linha %d inválida: %s", n, linha));
+            }
+            if (fim < inicial)
+                throw new IllegalArgumentException(String.format("Linha %d: faixa inválida %08d-%08d", n, inicial, fim));
+            campos[0] = Integer.toString(inicial);
+            campos[1] = Integer.toString(fim);
+            linhas.add(campos);
+        }
+        Collections.sort(linhas, (a, b) -> Integer.compare(Integer.parseInt(a[0]), Integer.parseInt(b[0])));
+        int fimAnterior = -1;
+        for (String[] campos : linhas) {
+            int inicial = Integer.parseInt(campos[0]);
+            int fim = Integer.parseInt(campos[1]);
+            if (inicial <= fimAnterior)
+                throw new IllegalArgumentException(String.format("Faixa sobreposta: %08d-%08d", inicial, fim));
+            fimAnterior = fim;
+        }
+
+        // grava em um arquivo temporário e o renomeia, para que uma falha
+        // na gravação não destrua o índice anterior
+        Path absoluto = destino.toAbsolutePath();
+        Path temporario = Files.createTempFile(absoluto.getParent(), absoluto.getFileName().toString(), ".tmp");
+        boolean gerado = false;
+        ByteBuffer registro = ByteBuffer.allocate(TAMANHO_REGISTRO);
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+                cabecalho.putInt(MAGICO).putInt(linhas.size()).flip();
+                while (cabecalho.hasRemaining()) canal.write(cabecalho);
+                for (String[] campos : linhas) {
+                    registro.clear();
+                    registro.putInt(Integer.parseInt(campos[0])).putInt(Integer.parseInt(campos[1]));
+                    grava(registro, campos[2].trim().toUpperCase(), Campo.UF);
+                    grava(registro, campos[3], Campo.LOGRADOURO);
+                    grava(registro, campos[4], Campo.BAIRRO);
+                    grava(registro, campos[5], Campo.CIDADE);
+                    registro.flip();
+                    while (registro.hasRemaining()) canal.write(registro);
+                }
+                canal.force(true);
+            }
+            try {
+                Files.move(temporario, absoluto, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, absoluto, StandardCopyOption.REPLACE_EXISTING);
+            }
+            gerado = true;
+        } finally {
+            if (!gerado) Files.deleteIfExists(temporario);
+        }
+        return linhas.size();
+    }
+
+    /**
+     * Gera o índice pela linha de comando:
+     * <code>java exemplo.util.IndiceCEP ceps.txt cep.idx</code>.
+     * O arquivo de entrada deve estar em UTF-8.
+     * @param args O arquivo de entrada e o de saída
+     * @throws IOException se houver erro de leitura ou gravação
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: java exemplo.util.IndiceCEP <entrada> <saida>");
+            System.exit(1);
+        }
+        try (Reader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            int n = gera(in, Paths.get(args[1]));
+            System.out.println(n + " registros gravados");
+        }
+    }
+
+    private static int leCEP(String s) {
+        int cep = 0;
+        int digitos = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                cep = cep * 10 + (c - '0');
+                digitos++;
+            } else if (c != '-' && c != '.' && c != ' ') {
+                throw new NumberFormatException(s);
+            }
+        }
+        if (digitos == 0 || digitos > 8) throw new NumberFormatException(s);
+        return cep;
+    }
+
+    private static void grava(ByteBuffer registro, String valor, Campo campo) {
+        byte[] b = valor.trim().getBytes(StandardCharsets.ISO_8859_1);
+        int n = Math.min(b.length, campo.tamanho);
+        registro.position(campo.deslocamento);
+        registro.put(b, 0, n);
+        for (int i = n; i < campo.tamanho; i++) registro.put((byte) ' ');
+    }
+}
@@ -0,0 +1,45 @@
+package exemplo.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Funções auxiliares para a geração de JSON diretamente em um
+ * <code>Writer</code>, sem montar a árvore do documento.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public final class JSON {
+
+    private JSON() {
+    }
+
+    /**
+     * Escreve o texto como uma string JSON, entre aspas, escapando aspas,
+     * barras invertidas e caracteres de controle.
+     * @param out O destino
+     * @param s O texto
+     * @throws IOException se houver erro na escrita
+     */
+    public static void escreveTexto(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,153 @@
+package exemplo.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV (RFC 4180) por demanda: lê um registro por vez, sem carregar
+ * o arquivo. Aceita campos entre aspas com separadores, quebras de linha e
+ * aspas duplicadas (<code>""</code>), linhas terminadas em CRLF ou LF e um
+ * BOM UTF-8 no início. O separador é configurável, pois planilhas em
+ * português costumam gerar <code>;</code>.
+ * <p>
+ * Não é thread-safe.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class LeitorCSV implements Closeable {
+
+    private static final int TAMANHO_BUFFER = 16 * 1024;
+
+    private final Reader in;
+    private final char separador;
+    private final char[] buf = new char[TAMANHO_BUFFER];
+    private int pos;
+    private int lim;
+    private boolean inicio = true;
+    private int linha = 1;
+    private int linhaRegistro;
+    private final StringBuilder campo = new StringBuilder(64);
+    private final List<String> campos = new ArrayList<String>();
+
+    /**
+     * @param in O texto CSV
+     * @param separador O separador de campos
+     */
+    public LeitorCSV(Reader in, char separador) {
+        if (separador == '"' || separador == '\r' || separador == '\n')
+            throw new IllegalArgumentException(String.format("Separador inválido: %c", separador));
+        this.in = in;
+        this.separador = separador;
+    }
+
+    /**
+     * Detecta o separador pela primeira linha (cabeçalho): <code>;</code> se
+     * houver mais ponto e vírgulas que vírgulas, senão <code>,</code>.
+     * @param cabecalho A primeira linha
+     * @return O separador
+     */
+    public static char detectaSeparador(CharSequence cabecalho) {
+        int virgulas = 0;
+        int pontoVirgulas = 0;
+        for (int i = 0; i < cabecalho.length(); i++) {
+            char c = cabecalho.charAt(i);
+            if (c == ',') virgulas++;
+            else if (c == ';') pontoVirgulas++;
+        }
+        return pontoVirgulas > virgulas ? ';' : ',';
+    }
+
+    private int le() throws IOException {
+        if (pos == lim) {
+            lim = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (lim <= 0) {
+                lim = 0;
+                return -1;
+            }
+            if (inicio) {
+                inicio = false;
+                if (buf[0] == '\uFEFF') pos++;
+                if (pos == lim) return le();
+            }
+        }
+        return buf[pos++];
+    }
+
+    private void devolve() {
+        pos--;
+    }
+
+    /**
+     * Lê o próximo registro. Linhas em branco são ignoradas.
+     * @return Os campos, ou <code>null</code> no fim do texto
+     * @throws IOException se houver erro de leitura ou aspas não fechadas
+     */
+    public String[] proximo() throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        int c;
+        // pula linhas em branco
+        while ((c = le()) == '\r' || c == '\n') {
+            if (c == '\n') linha++;
+        }
+        if (c < 0) return null;
+        devolve();
+        linhaRegistro = linha;
+        boolean aspas = false;
+        boolean emAspas = false;
+        while (true) {
+            c = le();
+            if (emAspas) {
+                if (c < 0)
+                    throw new IOException(String.format("Linha %d: aspas não fechadas", linhaRegistro));
+                if (c == '"') {
+                    int d = le();
+                    if (d == '"') {
+                        campo.append('"');
+                    } else {
+                        emAspas = false;
+                        if (d >= 0) devolve();
+                    }
+                } else {
+                    if (c == '\n') linha++;
+                    campo.append((char) c);
+                }
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                aspas = false;
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    int d = le();
+                    if (d != '\n' && d >= 0) devolve();
+                }
+                if (c >= 0) linha++;
+                campos.add(campo.toString());
+                return campos.toArray(new String[campos.size()]);
+            } else if (c == '"' && !aspas && campo.length() == 0) {
+                aspas = true;
+                emAspas = true;
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Retorna o número da linha em que começou o último registro lido.
+     * @return O número da linha, a partir de 1
+     */
+    public int getLinha() {
+        return linhaRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,150 @@
+package exemplo.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mede a vazão e a latência de uma operação: quantidade, recusas, falhas,
+ * tempo médio e máximo e um histograma de tempos, do qual são estimados os
+ * percentis. Recusas são execuções concluídas sem erro mas sem efeito (p.
+ * ex. uma inscrição com CPF já inscrito); a vazão conta somente as
+ * execuções bem-sucedidas.
+ * <p>
+ * Os contadores são <code>LongAdder</code>s (e um <code>LongAccumulator</code>
+ * para o máximo), que distribuem as atualizações concorrentes em células
+ * separadas: o registro não usa bloqueio nem disputa a mesma linha de cache
+ * entre as threads, e a leitura apenas soma as células. As leituras feitas
+ * durante atualizações são aproximadas, o que basta para monitoração.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class MedidorTempo {
+
+    /**
+     * O resultado de uma execução.
+     */
+    public enum Resultado {
+        SUCESSO, RECUSA, FALHA
+    }
+
+    /** Limites superiores, em milissegundos, das faixas do histograma. */
+    private static final long[] LIMITES_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private static final double NANOS_POR_MS = 1e6;
+
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder recusas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder tempoTotal = new LongAdder();
+    private final LongAccumulator tempoMaximo = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] faixas = new LongAdder[LIMITES_MS.length + 1];
+    private final long[] limitesNanos = new long[LIMITES_MS.length];
+    private volatile long inicio = System.nanoTime();
+
+    public MedidorTempo() {
+        for (int i = 0; i < faixas.length; i++) faixas[i] = new LongAdder();
+        for (int i = 0; i < LIMITES_MS.length; i++) limitesNanos[i] = LIMITES_MS[i] * 1000000L;
+    }
+
+    /**
+     * Registra uma execução da operação.
+     * @param nanos A duração, em nanossegundos
+     * @param sucesso <code>false</code> se a operação falhou
+     */
+    public void registra(long nanos, boolean sucesso) {
+        registra(nanos, sucesso ? Resultado.SUCESSO : Resultado.FALHA);
+    }
+
+    /**
+     * Registra uma execução da operação.
+     * @param nanos A duração, em nanossegundos
+     * @param resultado O resultado da execução
+     */
+    public void registra(long nanos, Resultado resultado) {
+        contagem.increment();
+        if (resultado == Resultado.FALHA) falhas.increment();
+        else if (resultado == Resultado.RECUSA) recusas.increment();
+        tempoTotal.add(nanos);
+        tempoMaximo.accumulate(nanos);
+        int i = 0;
+        while (i < limitesNanos.length && nanos > limitesNanos[i]) i++;
+        faixas[i].increment();
+    }
+
+    /**
+     * Retorna o número de execuções registradas.
+     * @return O número de execuções, incluindo as recusadas e as que falharam
+     */
+    public long getContagem() {
+        return contagem.sum();
+    }
+
+    public long getRecusas() {
+        return recusas.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    /**
+     * Retorna a vazão média das execuções bem-sucedidas desde a criação ou a
+     * última chamada a {@link #zera()}.
+     * @return Execuções bem-sucedidas por segundo
+     */
+    public double getPorSegundo() {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long sucessos = contagem.sum() - recusas.sum() - falhas.sum();
+        return segundos > 0 ? Math.max(0, sucessos) / segundos : 0;
+    }
+
+    public double getTempoMedioMs() {
+        long n = contagem.sum();
+        return n > 0 ? tempoTotal.sum() / NANOS_POR_MS / n : 0;
+    }
+
+    public double getTempoMaximoMs() {
+        return tempoMaximo.get() / NANOS_POR_MS;
+    }
+
+    /**
+     * Estima um percentil do tempo pelo histograma: o limite superior da
+     * faixa que o contém (ou o máximo, acima da última faixa).
+     * @param p O percentil, entre 0 e 100
+     * @return O tempo, em milissegundos, ou 0 se não houver execuções
+     * @throws IllegalArgumentException se o percentil estiver fora do intervalo
+     */
+    public double getPercentilMs(double p) {
+        if (p < 0 || p > 100)
+            throw new IllegalArgumentException(String.format("Percentil inválido: %s", p));
+        long[] n = new long[faixas.length];
+        long total = 0;
+        for (int i = 0; i < faixas.length; i++) {
+            n[i] = faixas[i].sum();
+            total += n[i];
+        }
+        if (total == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(total * p / 100));
+        long acumulado = 0;
+        for (int i = 0; i < LIMITES_MS.length; i++) {
+            acumulado += n[i];
+            if (acumulado >= alvo) return Math.min(LIMITES_MS[i], getTempoMaximoMs());
+        }
+        return getTempoMaximoMs();
+    }
+
+    /**
+     * Zera os contadores. Execuções registradas ao mesmo tempo podem ser
+     * parcialmente perdidas.
+     */
+    public void zera() {
+        contagem.reset();
+        recusas.reset();
+        falhas.reset();
+        tempoTotal.reset();
+        tempoMaximo.reset();
+        for (LongAdder f : faixas) f.reset();
+        inicio = System.nanoTime();
+    }
+}
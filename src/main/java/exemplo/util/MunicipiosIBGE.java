@@ -0,0 +1,430 @@
+package exemplo.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tabela de UFs e municípios do IBGE para validar e padronizar os pares
+ * cidade/UF informados pelos usuários.
+ * <p>
+ * Os nomes são comparados na forma normalizada: sem acentos, em maiúsculas,
+ * sem apóstrofos (inclusive o tipográfico <code>’</code>) e com hífens e
+ * espaços repetidos reduzidos a um espaço, de modo que <code>"santa barbara
+ * doeste"</code>, <code>"Santa Bárbara d’Oeste"</code> e <code>"Santa
+ * Bárbara d'Oeste"</code> são equivalentes. A busca usa um hash perfeito mínimo
+ * (<i>hash and displace</i>) construído na carga sobre os pares UF + nome
+ * normalizado: cada consulta calcula o hash percorrendo a entrada uma vez,
+ * lê um deslocamento e compara a entrada com uma única chave, em tempo
+ * constante e sem alocar objetos.
+ * <p>
+ * UFs sem municípios carregados são consideradas sem restrição, isto é,
+ * qualquer cidade é aceita.
+ * <p>
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public final class MunicipiosIBGE {
+
+    private static final String[] SIGLAS = {
+        "RO", "AC", "AM", "RR", "PA", "AP", "TO",
+        "MA", "PI", "CE", "RN", "PB", "PE", "AL", "SE", "BA",
+        "MG", "ES", "RJ", "SP",
+        "PR", "SC", "RS",
+        "MS", "MT", "GO", "DF"
+    };
+
+    private static final int[] CODIGOS_UF = {
+        11, 12, 13, 14, 15, 16, 17,
+        21, 22, 23, 24, 25, 26, 27, 28, 29,
+        31, 32, 33, 35,
+        41, 42, 43,
+        50, 51, 52, 53
+    };
+
+    /** Índice da UF + 1 pela sigla: <code>(c1 - 'A') * 26 + (c2 - 'A')</code>. */
+    private static final byte[] UF_POR_SIGLA = new byte[26 * 26];
+
+    /** Caracteres normalizados de U+0000 a U+00FF: 0 ignora, ' ' separa. */
+    private static final char[] NORMALIZADO = new char[256];
+
+    static {
+        for (int i = 0; i < SIGLAS.length; i++)
+            UF_POR_SIGLA[(SIGLAS[i].charAt(0) - 'A') * 26 + SIGLAS[i].charAt(1) - 'A'] = (byte) (i + 1);
+
+        Arrays.fill(NORMALIZADO, ' ');
+        NORMALIZADO['\''] = 0;
+        NORMALIZADO['`'] = 0;
+        NORMALIZADO[0xB4] = 0; // acento agudo isolado
+        for (char c = '0'; c <= '9'; c++) NORMALIZADO[c] = c;
+        for (char c = 'A'; c <= 'Z'; c++) {
+            NORMALIZADO[c] = c;
+            NORMALIZADO[c + 'a' - 'A'] = c;
+        }
+        String acentuados = "ÀÁÂÃÄÅàáâãäåÇçÈÉÊËèéêëÌÍÎÏìíîïÑñÒÓÔÕÖòóôõöÙÚÛÜùúûüÝýÿ";
+        String base       = "AAAAAAAAAAAACCEEEEEEEEIIIIIIIINNOOOOOOOOOOUUUUUUUUYYY";
+        for (int i = 0; i < acentuados.length(); i++)
+            NORMALIZADO[acentuados.charAt(i)] = base.charAt(i);
+    }
+
+    /** Limite de tentativas de deslocamento por grupo na construção. */
+    private static final int MAX_DESLOCAMENTO = 1 << 20;
+
+    private final int numMunicipios;
+    /** Os nomes normalizados, concatenados. */
+    private final char[] chaves;
+    private final int[] inicioChave;
+    private final byte[] ufMunicipio;
+    private final String[] nomes;
+    private final int[] codigos;
+    private final int[] municipiosPorUF = new int[SIGLAS.length];
+    /** Deslocamento de cada grupo do hash. */
+    private final int[] deslocamentos;
+    /** O município de cada posição do hash. */
+    private final int[] municipioPorPosicao;
+
+    private MunicipiosIBGE(List<String> nomes, List<Integer> ufs, List<Integer> codigos) {
+        numMunicipios = nomes.size();
+        this.nomes = nomes.toArray(new String[numMunicipios]);
+        this.codigos = new int[numMunicipios];
+        ufMunicipio = new byte[numMunicipios];
+        inicioChave = new int[numMunicipios + 1];
+        StringBuilder sb = new StringBuilder(numMunicipios * 12);
+        Set<String> unicas = new HashSet<String>(numMunicipios * 2);
+        for (int i = 0; i < numMunicipios; i++) {
+            this.codigos[i] = codigos.get(i);
+            ufMunicipio[i] = (byte) (int) ufs.get(i);
+            municipiosPorUF[ufs.get(i)]++;
+            inicioChave[i] = sb.length();
+            normaliza(this.nomes[i], sb);
+            if (sb.length() == inicioChave[i])
+                throw new IllegalArgumentException(String.format("Nome de município inválido: '%s'", this.nomes[i]));
+            if (!unicas.add(SIGLAS[ufs.get(i)] + sb.substring(inicioChave[i])))
+                throw new IllegalArgumentException(String.format("Município repetido: %s/%s", this.nomes[i], SIGLAS[ufs.get(i)]));
+        }
+        inicioChave[numMunicipios] = sb.length();
+        chaves = new char[sb.length()];
+        sb.getChars(0, sb.length(), chaves, 0);
+
+        deslocamentos = new int[Math.max(1, numMunicipios / 2)];
+        municipioPorPosicao = new int[Math.max(1, numMunicipios)];
+        constroiHash();
+    }
+
+    /**
+     * Constrói o hash perfeito mínimo: agrupa as chaves pelo hash inicial e,
+     * dos grupos maiores para os menores, procura para cada grupo um
+     * deslocamento que leve todas as suas chaves a posições livres.
+     */
+    private void constroiHash() {
+        int numGrupos = deslocamentos.length;
+        long[] hashes = new long[numMunicipios];
+        int[] tamanhoGrupo = new int[numGrupos];
+        for (int i = 0; i < numMunicipios; i++) {
+            hashes[i] = hashChave(i);
+            tamanhoGrupo[grupo(hashes[i], numGrupos)]++;
+        }
+        // municípios ordenados por grupo
+        int[] inicioGrupo = new int[numGrupos + 1];
+        for (int g = 0; g < numGrupos; g++)
+            inicioGrupo[g + 1] = inicioGrupo[g] + tamanhoGrupo[g];
+        int[] porGrupo = new int[numMunicipios];
+        int[] cursor = Arrays.copyOf(inicioGrupo, numGrupos);
+        for (int i = 0; i < numMunicipios; i++)
+            porGrupo[cursor[grupo(hashes[i], numGrupos)]++] = i;
+
+        Integer[] ordem = new Integer[numGrupos];
+        for (int g = 0; g < numGrupos; g++) ordem[g] = g;
+        Arrays.sort(ordem, (a, b) -> tamanhoGrupo[b] - tamanhoGrupo[a]);
+
+        boolean[] ocupada = new boolean[municipioPorPosicao.length];
+        int[] posicoes = new int[numMunicipios == 0 ? 0 : tamanhoGrupo[ordem[0]]];
+        for (Integer g : ordem) {
+            int n = tamanhoGrupo[g];
+            if (n == 0) break;
+            int d = 0;
+            tentativa:
+            for (;; d++) {
+                if (d == MAX_DESLOCAMENTO)
+                    throw new IllegalStateException("Não foi possível construir o hash dos municípios");
+                for (int k = 0; k < n; k++) {
+                    int p = posicao(hashes[porGrupo[inicioGrupo[g] + k]], d, municipioPorPosicao.length);
+                    if (ocupada[p]) continue tentativa;
+                    for (int j = 0; j < k; j++) {
+                        if (posicoes[j] == p) continue tentativa;
+                    }
+                    posicoes[k] = p;
+                }
+                break;
+            }
+            deslocamentos[g] = d;
+            for (int k = 0; k < n; k++) {
+                ocupada[posicoes[k]] = true;
+                municipioPorPosicao[posicoes[k]] = porGrupo[inicioGrupo[g] + k];
+            }
+        }
+    }
+
+    private static int grupo(long hash, int numGrupos) {
+        return (int) ((hash >>> 1) % numGrupos);
+    }
+
+    private static int posicao(long hash, int deslocamento, int tamanho) {
+        return (int) ((mistura(hash + deslocamento * 0x9E3779B97F4A7C15L) >>> 1) % tamanho);
+    }
+
+    private static long mistura(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long hashInicial(int uf) {
+        return 0xcbf29ce484222325L ^ (uf + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static long hashCaractere(long h, char c) {
+        return (h ^ c) * 0x100000001b3L;
+    }
+
+    private long hashChave(int i) {
+        long h = hashInicial(ufMunicipio[i]);
+        for (int k = inicioChave[i]; k < inicioChave[i + 1]; k++)
+            h = hashCaractere(h, chaves[k]);
+        return mistura(h);
+    }
+
+    /**
+     * Retorna o caractere normalizado: 0 para ignorar, <code>' '</code> para
+     * separador, ou a letra/dígito em maiúscula sem acento. Caracteres fora
+     * de Latin-1 são tratados como separador, exceto os apóstrofos
+     * tipográficos (<code>’</code>, <code>‘</code> e <code>ʼ</code>), ignorados
+     * como o <code>'</code>.
+     */
+    private static char normaliza(char c) {
+        if (c < 256) return NORMALIZADO[c];
+        return c == '\u2019' || c == '\u2018' || c == '\u02BC' ? 0 : ' ';
+    }
+
+    /**
+     * Acrescenta o nome normalizado a <code>sb</code>.
+     */
+    private static void normaliza(CharSequence nome, StringBuilder sb) {
+        boolean separar = false;
+        int inicio = sb.length();
+        for (int i = 0; i < nome.length(); i++) {
+            char c = normaliza(nome.charAt(i));
+            if (c == 0) continue;
+            if (c == ' ') {
+                separar = sb.length() > inicio;
+            } else {
+                if (separar) sb.append(' ');
+                separar = false;
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Carrega a tabela a partir de um arquivo com um município por linha no
+     * formato <code>código IBGE;UF;nome</code>. Linhas em branco ou iniciadas
+     * por <code>#</code> são ignoradas.
+     * @param municipios O conteúdo do arquivo
+     * @return A tabela
+     * @throws IOException se o arquivo não puder ser lido
+     * @throws IllegalArgumentException se alguma linha for inválida ou repetida
+     */
+    public static MunicipiosIBGE carrega(Reader municipios) throws IOException {
+        List<String> nomes = new ArrayList<String>(6000);
+        List<Integer> ufs = new ArrayList<Integer>(6000);
+        List<Integer> codigos = new ArrayList<Integer>(6000);
+        BufferedReader in = new BufferedReader(municipios);
+        String linha;
+        for (int n = 1; (linha = in.readLine()) != null; n++) {
+            linha = linha.trim();
+            if (linha.isEmpty() || linha.charAt(0) == '#') continue;
+            String[] campos = linha.split(";", 3);
+            int uf = campos.length == 3 ? indiceUF(campos[1].trim()) : -1;
+            int codigo;
+            try {
+                codigo = campos.length == 3 ? Integer.parseInt(campos[0].trim()) : -1;
+            } catch (NumberFormatException e) {
+                codigo = -1;
+            }
+            if (uf < 0 || codigo / 100000 != CODIGOS_UF[uf])
+                throw new IllegalArgumentException(String.format("Linha %d inválida: %s", n, linha));
+            codigos.add(codigo);
+            ufs.add(uf);
+            nomes.add(campos[2].trim());
+        }
+        return new MunicipiosIBGE(nomes, ufs, codigos);
+    }
+
+    /**
+     * Retorna o índice da UF pela sigla, em maiúsculas ou minúsculas,
+     * ignorando espaços nas extremidades.
+     * @param uf A sigla
+     * @return O índice, ou -1 se a sigla for inválida
+     */
+    public static int indiceUF(CharSequence uf) {
+        int i = 0;
+        int f = uf.length();
+        while (i < f && uf.charAt(i) == ' ') i++;
+        while (f > i && uf.charAt(f - 1) == ' ') f--;
+        if (f - i != 2) return -1;
+        int c1 = (uf.charAt(i) | 0x20) - 'a';
+        int c2 = (uf.charAt(i + 1) | 0x20) - 'a';
+        if (c1 < 0 || c1 >= 26 || c2 < 0 || c2 >= 26) return -1;
+        return UF_POR_SIGLA[c1 * 26 + c2] - 1;
+    }
+
+    /**
+     * Retorna a sigla padronizada (em maiúsculas) da UF.
+     * @param uf A sigla informada
+     * @return A sigla, ou <code>null</code> se for inválida
+     */
+    public static String canonicaUF(CharSequence uf) {
+        int i = indiceUF(uf);
+        return i < 0 ? null : SIGLAS[i];
+    }
+
+    /**
+     * Retorna o índice do município com o nome informado na UF.
+     * @param uf A sigla da UF
+     * @param cidade O nome do município, em qualquer grafia equivalente
+     * @return O índice do município, ou -1 se não existir
+     */
+    public int indice(CharSequence uf, CharSequence cidade) {
+        int u = indiceUF(uf);
+        if (u < 0 || numMunicipios == 0) return -1;
+        long h = hashInicial(u);
+        boolean separar = false;
+        boolean vazio = true;
+        for (int i = 0; i < cidade.length(); i++) {
+            char c = normaliza(cidade.charAt(i));
+            if (c == 0) continue;
+            if (c == ' ') {
+                separar = !vazio;
+            } else {
+                if (separar) h = hashCaractere(h, ' ');
+                separar = false;
+                vazio = false;
+                h = hashCaractere(h, c);
+            }
+        }
+        h = mistura(h);
+        int m = municipioPorPosicao[posicao(h, deslocamentos[grupo(h, deslocamentos.length)], municipioPorPosicao.length)];
+        return ufMunicipio[m] == u && igual(m, cidade) ? m : -1;
+    }
+
+    /**
+     * Compara a cidade normalizada com a chave do município.
+     */
+    private boolean igual(int m, CharSequence cidade) {
+        int k = inicioChave[m];
+        int fim = inicioChave[m + 1];
+        boolean separar = false;
+        for (int i = 0; i < cidade.length(); i++) {
+            char c = normaliza(cidade.charAt(i));
+            if (c == 0) continue;
+            if (c == ' ') {
+                separar = k > inicioChave[m];
+            } else {
+                if (separar && (k == fim || chaves[k++] != ' ')) return false;
+                separar = false;
+                if (k == fim || chaves[k++] != c) return false;
+            }
+        }
+        return k == fim;
+    }
+
+    /**
+     * Retorna <code>true</code> se a UF for válida e a cidade existir na UF
+     * ou a UF não tiver municípios carregados.
+     * @param uf A sigla da UF
+     * @param cidade O nome do município
+     * @return <code>true</code> se o par for válido
+     */
+    public boolean isValido(CharSequence uf, CharSequence cidade) {
+        int u = indiceUF(uf);
+        return u >= 0 && (municipiosPorUF[u] == 0 || indice(uf, cidade) >= 0);
+    }
+
+    /**
+     * Retorna o nome oficial do município, com acentos.
+     * @param uf A sigla da UF
+     * @param cidade O nome informado
+     * @return O nome oficial, ou <code>null</code> se o município não existir
+     */
+    public String canonicaCidade(CharSequence uf, CharSequence cidade) {
+        int m = indice(uf, cidade);
+        return m < 0 ? null : nomes[m];
+    }
+
+    /**
+     * Retorna o nome oficial do município.
+     * @param indice O índice retornado por {@link #indice(CharSequence, CharSequence)}
+     * @return O nome
+     */
+    public String getNome(int indice) {
+        return nomes[indice];
+    }
+
+    /**
+     * Retorna a sigla da UF do município.
+     * @param indice O índice do município
+     * @return A sigla
+     */
+    public String getUF(int indice) {
+        return SIGLAS[ufMunicipio[indice]];
+    }
+
+    /**
+     * Retorna o código IBGE (7 dígitos) do município.
+     * @param indice O índice do município
+     * @return O código
+     */
+    public int getCodigo(int indice) {
+        return codigos[indice];
+    }
+
+    /**
+     * Retorna o número de municípios carregados.
+     * @return O número de municípios
+     */
+    public int getNumMunicipios() {
+        return numMunicipios;
+    }
+
+    /**
+     * Retorna as UFs sem municípios carregados, nas quais qualquer cidade é aceita.
+     * @return As siglas, na ordem dos códigos do IBGE
+     */
+    public List<String> getUFsSemMunicipios() {
+        List<String> ufs = new ArrayList<String>();
+        for (int i = 0; i < SIGLAS.length; i++) {
+            if (municipiosPorUF[i] == 0) ufs.add(SIGLAS[i]);
+        }
+        return ufs;
+    }
+
+    /**
+     * Retorna o número de municípios carregados da UF.
+     * @param uf A sigla da UF
+     * @return O número de municípios, ou 0 se a UF for inválida
+     */
+    public int getNumMunicipios(CharSequence uf) {
+        int u = indiceUF(uf);
+        return u < 0 ? 0 : municipiosPorUF[u];
+    }
+}
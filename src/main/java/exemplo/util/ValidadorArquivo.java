@@ -0,0 +1,305 @@
+package exemplo.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Valida os dígitos verificadores de um arquivo texto com um número por linha,
+ * p. ex. arquivos de conciliação com milhões de CPFs ou CNPJs.
+ * O arquivo é mapeado em memória e dividido em trechos validados em paralelo.
+ * Os dígitos são lidos diretamente dos bytes mapeados, sem criar uma
+ * <code>String</code> por linha. Os caracteres de máscara <code>. - /</code>,
+ * espaços e tabulações são ignorados, de modo que tanto
+ * <code>12345678909</code> quanto <code>123.456.789-09</code> são aceitos.
+ * Linhas vazias são ignoradas; linhas sem nenhum dígito (p. ex. só com
+ * máscara ou espaços) são inválidas, assim como as com outros caracteres,
+ * exceto letras maiúsculas nos esquemas alfanuméricos (CNPJ), validadas por
+ * {@link CalculadoraDV#isValidoAlfanumerico(java.nio.ByteBuffer, int, int)}.
+ * <p>
+ * As linhas inválidas são informadas a um {@link Ouvinte} na ordem do arquivo,
+ * à medida que os trechos são concluídos.
+ * <p>
+ * Outros formatos de linha podem ser validados informando um
+ * {@link ValidadorLinha}, p. ex. os códigos de barras de um arquivo de retorno
+ * bancário (ver {@link Boleto#validadorLinha()}).
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ * @see ValidadorLote
+ */
+public class ValidadorArquivo {
+
+    /**
+     * Recebe as linhas inválidas encontradas.
+     */
+    public interface Ouvinte {
+        /**
+         * Chamado para cada linha inválida, na ordem do arquivo.
+         * @param linha O número da linha, a partir de 1
+         * @param offset A posição, em bytes, do início da linha no arquivo
+         */
+        void invalido(long linha, long offset);
+    }
+
+    /**
+     * Valida uma linha diretamente sobre os bytes mapeados.
+     * Cada trecho obtém a sua instância, portanto implementações podem
+     * manter estado reutilizável sem sincronização.
+     */
+    public interface ValidadorLinha {
+        /**
+         * Retorna <code>true</code> se a linha entre as posições absolutas
+         * <code>[inicio, fim)</code> do buffer for válida. O fim de linha
+         * (<code>'\n'</code>) não está incluído. A posição do buffer não
+         * deve ser alterada.
+         * @param buf O buffer mapeado
+         * @param inicio Posição do primeiro byte da linha
+         * @param fim Posição seguinte ao último byte da linha
+         * @return <code>true</code> se a linha for válida
+         */
+        boolean isValida(ByteBuffer buf, int inicio, int fim);
+    }
+
+    /**
+     * Tamanho padrão de cada trecho mapeado (32 MiB).
+     */
+    public static final int TAMANHO_TRECHO_PADRAO = 32 * 1024 * 1024;
+
+    /**
+     * Bytes mapeados além do fim do trecho para completar a última linha.
+     * Linhas maiores que isto são consideradas inválidas.
+     */
+    private static final int MARGEM = 1024;
+
+    private final Supplier<? extends ValidadorLinha> fabrica;
+    private final ForkJoinPool pool;
+    private final int tamanhoTrecho;
+
+    /**
+     * Cria um validador para o esquema especificado usando o pool comum.
+     * @param esquema O esquema de DV
+     */
+    public ValidadorArquivo(ValidadorLote.Esquema esquema) {
+        this(esquema, ForkJoinPool.commonPool(), TAMANHO_TRECHO_PADRAO);
+    }
+
+    /**
+     * Cria um validador para o esquema especificado.
+     * @param esquema O esquema de DV
+     * @param pool O pool onde os trechos serão validados
+     * @param tamanhoTrecho O tamanho, em bytes, de cada trecho
+     * @throws IllegalArgumentException se o tamanho do trecho for menor que a margem
+     */
+    public ValidadorArquivo(ValidadorLote.Esquema esquema, ForkJoinPool pool, int tamanhoTrecho) {
+        this(compartilhado(new LinhaDV(esquema)), pool, tamanhoTrecho);
+    }
+
+    /**
+     * Cria um validador de arquivo com um validador de linha próprio usando o pool comum.
+     * @param fabrica Cria o validador de linha de cada trecho
+     */
+    public ValidadorArquivo(Supplier<? extends ValidadorLinha> fabrica) {
+        this(fabrica, ForkJoinPool.commonPool(), TAMANHO_TRECHO_PADRAO);
+    }
+
+    /**
+     * Cria um validador de arquivo com um validador de linha próprio.
+     * @param fabrica Cria o validador de linha de cada trecho
+     * @param pool O pool onde os trechos serão validados
+     * @param tamanhoTrecho O tamanho, em bytes, de cada trecho
+     * @throws IllegalArgumentException se o tamanho do trecho for menor que a margem
+     */
+    public ValidadorArquivo(Supplier<? extends ValidadorLinha> fabrica, ForkJoinPool pool, int tamanhoTrecho) {
+        if (tamanhoTrecho < MARGEM)
+            throw new IllegalArgumentException(String.format("Tamanho de trecho inválido (%d). Deve ser no mínimo %d", tamanhoTrecho, MARGEM));
+        this.fabrica = fabrica;
+        this.pool = pool;
+        this.tamanhoTrecho = tamanhoTrecho;
+    }
+
+    private static Supplier<ValidadorLinha> compartilhado(ValidadorLinha validador) {
+        return () -> validador;
+    }
+
+    /**
+     * Valida o arquivo, informando cada linha inválida ao ouvinte.
+     * @param arquivo O arquivo a ser validado
+     * @param ouvinte Recebe as linhas inválidas, na ordem do arquivo
+     * @return O resultado com os totais
+     * @throws IOException se o arquivo não puder ser lido
+     */
+    public Resultado valida(Path arquivo, Ouvinte ouvinte) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            List<ForkJoinTask<Parcial>> trechos = new ArrayList<>();
+            for (long inicio = 0; inicio < tamanho; inicio += tamanhoTrecho)
+                trechos.add(pool.submit(new Trecho(canal, inicio, Math.min(inicio + tamanhoTrecho, tamanho), tamanho)));
+
+            long linhas = 0;
+            long invalidos = 0;
+            try {
+                for (ForkJoinTask<Parcial> t : trechos) {
+                    Parcial p = t.join();
+                    for (int i = 0; i < p.numInvalidos; i++)
+                        ouvinte.invalido(linhas + p.invalidos[2 * i] + 1, p.invalidos[2 * i + 1]);
+                    linhas += p.linhas;
+                    invalidos += p.numInvalidos;
+                }
+            } catch (UncheckedIOException e) {
+                for (ForkJoinTask<Parcial> t : trechos) t.cancel(false);
+                throw e.getCause();
+            }
+            return new Resultado(linhas, invalidos);
+        }
+    }
+
+    /**
+     * O resultado parcial de um trecho: número de linhas iniciadas no trecho e
+     * pares (índice local da linha, offset) das inválidas.
+     */
+    private static class Parcial {
+        long linhas;
+        long[] invalidos = new long[32];
+        int numInvalidos;
+
+        void adiciona(long linha, long offset) {
+            if (2 * numInvalidos == invalidos.length)
+                invalidos = Arrays.copyOf(invalidos, invalidos.length * 2);
+            invalidos[2 * numInvalidos] = linha;
+            invalidos[2 * numInvalidos + 1] = offset;
+            numInvalidos++;
+        }
+    }
+
+    /**
+     * Valida as linhas que se iniciam em <code>[inicio, fim)</code>.
+     */
+    private class Trecho extends RecursiveTask<Parcial> {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel canal;
+        private final long inicio;
+        private final long fim;
+        private final long tamanhoArquivo;
+
+        Trecho(FileChannel canal, long inicio, long fim, long tamanhoArquivo) {
+            this.canal = canal;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.tamanhoArquivo = tamanhoArquivo;
+        }
+
+        @Override
+        protected Parcial compute() {
+            // mapeia um byte antes, para saber se o trecho começa no início
+            // de uma linha, e a margem depois, para completar a última linha
+            long base = inicio == 0 ? 0 : inicio - 1;
+            long limite = Math.min(fim + MARGEM, tamanhoArquivo);
+            MappedByteBuffer buf;
+            try {
+                buf = canal.map(FileChannel.MapMode.READ_ONLY, base, limite - base);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int ultimo = (int) (limite - base);
+            int fimTrecho = (int) (fim - base);
+            boolean fimDoArquivo = limite == tamanhoArquivo;
+            int i = (int) (inicio - base);
+            if (inicio > 0 && buf.get(0) != '\n') {
+                // a linha corrente pertence ao trecho anterior
+                while (i < fimTrecho && buf.get(i) != '\n') i++;
+                i++;
+            }
+
+            ValidadorLinha validador = fabrica.get();
+            Parcial p = new Parcial();
+            while (i < fimTrecho) {
+                int j = i;
+                while (j < ultimo && buf.get(j) != '\n') j++;
+                // linhas maiores que a margem são inválidas
+                boolean valido = (j < ultimo || fimDoArquivo) && validador.isValida(buf, i, j);
+                if (!valido)
+                    p.adiciona(p.linhas, base + i);
+                p.linhas++;
+                i = j + 1;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Valida linhas com um número de um esquema de DV. Sem estado, uma única
+     * instância é compartilhada por todos os trechos.
+     */
+    private static class LinhaDV implements ValidadorLinha {
+        private final ValidadorLote.Esquema esquema;
+
+        LinhaDV(ValidadorLote.Esquema esquema) {
+            this.esquema = esquema;
+        }
+
+        @Override
+        public boolean isValida(ByteBuffer buf, int inicio, int fim) {
+            // somente linhas vazias são ignoradas
+            if (fim == inicio || fim - inicio == 1 && buf.get(inicio) == '\r') return true;
+            long numero = 0;
+            int digitos = 0;
+            boolean letras = false;
+            for (int j = inicio; j < fim; j++) {
+                byte b = buf.get(j);
+                if (b >= '0' && b <= '9') {
+                    numero = numero * 10 + (b - '0');
+                    digitos++;
+                } else if (b >= 'A' && b <= 'Z' && esquema.isAlfanumerico()) {
+                    letras = true;
+                } else if (b != '.' && b != '-' && b != '/' && b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            if (letras)
+                return esquema.getCalculadora().isValidoAlfanumerico(buf, inicio, fim);
+            return digitos > 0 && digitos <= 18 && esquema.isValido(numero);
+        }
+    }
+
+    /**
+     * O resultado da validação de um arquivo.
+     */
+    public static class Resultado {
+        private final long totalLinhas;
+        private final long totalInvalidos;
+
+        Resultado(long totalLinhas, long totalInvalidos) {
+            this.totalLinhas = totalLinhas;
+            this.totalInvalidos = totalInvalidos;
+        }
+
+        /**
+         * Retorna o número de linhas do arquivo, incluindo as em branco.
+         * @return O total de linhas
+         */
+        public long getTotalLinhas() {
+            return totalLinhas;
+        }
+
+        /**
+         * Retorna o número de linhas inválidas.
+         * @return O total de inválidos
+         */
+        public long getTotalInvalidos() {
+            return totalInvalidos;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package exemplo.util;
+
+import java.nio.LongBuffer;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
+
+/**
+ * Valida dígitos verificadores em lote.
+ * Os números são informados já com os DVs concatenados (p. ex. o CPF completo
+ * com 11 dígitos) em um <code>long[]</code>, <code>LongBuffer</code> ou
+ * <code>LongStream</code>. Entradas grandes são divididas entre os núcleos
+ * disponíveis usando fork/join. O resultado é um {@link Resultado} com os
+ * índices inválidos em um <code>BitSet</code> e os totais.
+ * <p>
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ *
+ * @author Vitor Yudi Hansen
+ * @version 1.00
+ */
+public class ValidadorLote {
+
+    /**
+     * Os esquemas de DV suportados.
+     */
+    public enum Esquema {
+        /** Módulo 10, 1 DV. */
+        MODULO10(CalculadoraDV.modulo10()),
+        /** Módulo 11 na variante {@link DVModulo11#DVM11_NORMAL}, 1 DV. */
+        MODULO11(CalculadoraDV.modulo11()),
+        /** Módulo 11 na variante {@link DVModulo11#DVM11_BARCODE}, 1 DV. */
+        MODULO11_BARCODE(CalculadoraDV.modulo11Barcode()),
+        /** CPF, 2 DVs. */
+        CPF(CalculadoraDV.cpf()),
+        /** CNPJ, numérico ou alfanumérico, 2 DVs. */
+        CNPJ(CalculadoraDV.cnpj(), true),
+        /** PIS/PASEP, 1 DV. */
+        PIS_PASEP(CalculadoraDV.pisPasep()),
+        /** Título de eleitor, 2 DVs. */
+        TITULO_ELEITOR(CalculadoraDV.tituloEleitor()),
+        /** RENAVAM, 1 DV. */
+        RENAVAM(CalculadoraDV.renavam());
+
+        private final CalculadoraDV calculadora;
+        private final boolean alfanumerico;
+
+        private Esquema(CalculadoraDV calculadora) {
+            this(calculadora, false);
+        }
+
+        private Esquema(CalculadoraDV calculadora, boolean alfanumerico) {
+            this.calculadora = calculadora;
+            this.alfanumerico = alfanumerico;
+        }
+
+        /**
+         * Retorna <code>true</code> se o esquema admite valores base com letras.
+         * Valores alfanuméricos não podem ser representados como <code>long</code>,
+         * mas são aceitos pelo {@link ValidadorArquivo}.
+         * @return <code>true</code> se o esquema for alfanumérico
+         */
+        public boolean isAlfanumerico() {
+            return alfanumerico;
+        }
+
+        /**
+         * Retorna a calculadora compartilhada do esquema.
+         * @return A calculadora
+         */
+        public CalculadoraDV getCalculadora() {
+            return calculadora;
+        }
+
+        /**
+         * Retorna <code>true</code> se o número completo, com DVs, for válido.
+         * @param numero O valor base seguido dos DVs
+         * @return <code>true</code> se os DVs conferirem
+         */
+        public boolean isValido(long numero) {
+            return calculadora.isValido(numero);
+        }
+    }
+
+    /**
+     * Número mínimo de elementos processados por tarefa, antes de dividir.
+     * Deve ser múltiplo de 64 para que cada tarefa escreva em palavras
+     * distintas do mapa de bits, dispensando sincronização.
+     */
+    public static final int LIMIAR_PADRAO = 64 * 256;
+
+    private final Esquema esquema;
+    private final ForkJoinPool pool;
+    private final int limiar;
+
+    /**
+     * Cria um validador para o esquema especificado usando o pool comum.
+     * @param esquema O esquema de DV
+     */
+    public ValidadorLote(Esquema esquema) {
+        this(esquema, ForkJoinPool.commonPool(), LIMIAR_PADRAO);
+    }
+
+    /**
+     * Cria um validador para o esquema especificado.
+     * @param esquema O esquema de DV
+     * @param pool O pool onde as tarefas serão executadas
+     * @param limiar Número mínimo de elementos por tarefa, múltiplo de 64
+     * @throws IllegalArgumentException se o limiar não for múltiplo positivo de 64
+     */
+    public ValidadorLote(Esquema esquema, ForkJoinPool pool, int limiar) {
+        if (limiar <= 0 || limiar % 64 != 0)
+            throw new IllegalArgumentException(String.format("Limiar inválido (%d). Deve ser múltiplo de 64", limiar));
+        this.esquema = esquema;
+        this.pool = pool;
+        this.limiar = limiar;
+    }
+
+    public Esquema getEsquema() {
+        return esquema;
+    }
+
+    /**
+     * Valida os números do array.
+     * @param numeros Os números com DVs
+     * @return O resultado da validação
+     */
+    public Resultado valida(long[] numeros) {
+        return valida(LongBuffer.wrap(numeros));
+    }
+
+    /**
+     * Valida os números restantes do buffer, da posição atual até o limite.
+     * A posição do buffer não é alterada. Os índices do resultado são
+     * relativos à posição atual.
+     * @param numeros Os números com DVs
+     * @return O resultado da validação
+     */
+    public Resultado valida(LongBuffer numeros) {
+        LongBuffer buffer = numeros.slice();
+        int total = buffer.remaining();
+        long[] palavras = new long[(total + 63) >>> 6];
+        int invalidos = total == 0 ? 0 : pool.invoke(new Tarefa(buffer, 0, total, palavras));
+        return new Resultado(total, invalidos, BitSet.valueOf(palavras));
+    }
+
+    /**
+     * Valida os números do stream, na ordem de encontro.
+     * O stream é consumido por completo.
+     * @param numeros Os números com DVs
+     * @return O resultado da validação
+     */
+    public Resultado valida(LongStream numeros) {
+        return valida(numeros.toArray());
+    }
+
+    /**
+     * Tarefa que valida o intervalo <code>[de, ate)</code> marcando os
+     * inválidos em <code>palavras</code> e retorna a quantidade de inválidos.
+     */
+    private class Tarefa extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final LongBuffer numeros;
+        private final int de;
+        private final int ate;
+        private final long[] palavras;
+
+        Tarefa(LongBuffer numeros, int de, int ate, long[] palavras) {
+            this.numeros = numeros;
+            this.de = de;
+            this.ate = ate;
+            this.palavras = palavras;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (ate - de <= limiar) {
+                int invalidos = 0;
+                for (int i = de; i < ate; i++) {
+                    if (!esquema.isValido(numeros.get(i))) {
+                        palavras[i >>> 6] |= 1L << i;
+                        invalidos++;
+                    }
+                }
+                return invalidos;
+            }
+            // divide em uma fronteira de palavra do mapa de bits
+            int meio = ((de + ate) >>> 1) & ~63;
+            if (meio <= de) meio = de + limiar;
+            Tarefa esquerda = new Tarefa(numeros, de, meio, palavras);
+            esquerda.fork();
+            int direita = new Tarefa(numeros, meio, ate, palavras).compute();
+            return direita + esquerda.join();
+        }
+    }
+
+    /**
+     * O resultado de uma validação em lote.
+     */
+    public static class Resultado {
+        private final int total;
+        private final int totalInvalidos;
+        private final BitSet invalidos;
+
+        Resultado(int total, int totalInvalidos, BitSet invalidos) {
+            this.total = total;
+            this.totalInvalidos = totalInvalidos;
+            this.invalidos = invalidos;
+        }
+
+        /**
+         * Retorna o número de elementos validados.
+         * @return O total de elementos
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Retorna o número de elementos com DV inválido.
+         * @return O total de inválidos
+         */
+        public int getTotalInvalidos() {
+            return totalInvalidos;
+        }
+
+        /**
+         * Retorna o número de elementos com DV válido.
+         * @return O total de válidos
+         */
+        public int getTotalValidos() {
+            return total - totalInvalidos;
+        }
+
+        /**
+         * Retorna <code>true</code> se o elemento no índice especificado for válido.
+         * @param indice O índice do elemento na entrada
+         * @return <code>true</code> se o DV conferir
+         */
+        public boolean isValido(int indice) {
+            if (indice < 0 || indice >= total)
+                throw new IndexOutOfBoundsException(String.format("Índice (%d) fora da faixa válida (0-%d)", indice, total - 1));
+            return !invalidos.get(indice);
+        }
+
+        /**
+         * Retorna uma cópia do mapa de bits dos índices inválidos.
+         * @return Os índices inválidos
+         */
+        public BitSet getInvalidos() {
+            return (BitSet) invalidos.clone();
+        }
+    }
+}
@@ -4,25 +4,40 @@
  */
 package inscricao.faces.convert;
 
+import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.convert.Converter;
+import javax.faces.convert.ConverterException;
 
 /**
  *
  * @author Vitor Yudi Hansen
  */
+@ManagedBean(name = "cepConverter")
+@ApplicationScoped
 public class CEPConverter implements Converter {
 
+    /**
+     * A máscara de exibição, igual à do campo.
+     */
+    public static final String MASCARA = "#####-###";
+
     @Override
     public Object getAsObject(FacesContext fc, UIComponent uic, String string) {
-        return string == null || string.isEmpty() ? null : Integer.valueOf(string.replace("-", ""));
+        if (string == null) return null;
+        long cep = Mascaras.leNumero(string, 8, ".-");
+        if (cep == Mascaras.SEM_DIGITOS) return null;
+        if (cep == Mascaras.INVALIDO)
+            throw new ConverterException(new FacesMessage("CEP \'" + string + "\' em formato incorreto."));
+        return (int) cep;
     }
 
     @Override
     public String getAsString(FacesContext fc, UIComponent uic, Object o) {
-        Integer cep = (Integer) o;
-        return String.format("%05d-%03d", cep / 1000, cep % 1000);
+        return o == null ? "" : Mascaras.formata((Integer) o, MASCARA);
     }
     
 }
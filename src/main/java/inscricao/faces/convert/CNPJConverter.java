@@ -0,0 +1,58 @@
+package inscricao.faces.convert;
+
+import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+import javax.faces.component.UIComponent;
+import javax.faces.context.FacesContext;
+import javax.faces.convert.Converter;
+import javax.faces.convert.ConverterException;
+
+/**
+ * Converte CNPJs numéricos ou alfanuméricos: armazena os 14 caracteres em
+ * maiúsculas, sem máscara, e exibe como <code>99.999.999/9999-99</code>.
+ * CNPJs numéricos com zeros à esquerda omitidos são completados.
+ * @author Vitor Yudi Hansen
+ * @see exemplo.util.DigitoVerificadorCNPJ
+ */
+@ManagedBean(name = "cnpjConverter")
+@ApplicationScoped
+public class CNPJConverter implements Converter {
+
+    /**
+     * A máscara de exibição.
+     */
+    public static final String MASCARA = "##.###.###/####-##";
+
+    private static final int TAMANHO = 14;
+
+    @Override
+    public Object getAsObject(FacesContext fc, UIComponent uic, String string) {
+        if (string == null) return null;
+        int n = Mascaras.copiaCaracteres(string, TAMANHO, ".-/", true);
+        if (n == 0) return null;
+        if (n < 0)
+            throw new ConverterException(new FacesMessage("CNPJ \'" + string + "\' em formato incorreto."));
+        char[] b = Mascaras.buffer();
+        if (n < TAMANHO) {
+            // completa com zeros à esquerda, somente se for numérico
+            for (int i = 0; i < n; i++) {
+                if (b[i] > '9')
+                    throw new ConverterException(new FacesMessage("CNPJ \'" + string + "\' em formato incorreto."));
+            }
+            System.arraycopy(b, 0, b, TAMANHO - n, n);
+            for (int i = 0; i < TAMANHO - n; i++) b[i] = '0';
+        }
+        return new String(b, 0, TAMANHO);
+    }
+
+    @Override
+    public String getAsString(FacesContext fc, UIComponent uic, Object o) {
+        if (o == null) return "";
+        if (o instanceof Number)
+            return Mascaras.formata(((Number) o).longValue(), MASCARA);
+        String cnpj = o.toString();
+        return cnpj.length() == TAMANHO ? Mascaras.formata(cnpj, MASCARA) : cnpj;
+    }
+    
+}
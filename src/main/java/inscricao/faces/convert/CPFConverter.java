@@ -4,25 +4,40 @@
  */
 package inscricao.faces.convert;
 
+import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.convert.Converter;
+import javax.faces.convert.ConverterException;
 
 /**
  *
  * @author Vitor Yudi Hansen
  */
+@ManagedBean(name = "cpfConverter")
+@ApplicationScoped
 public class CPFConverter implements Converter {
 
+    /**
+     * A máscara de exibição, igual à do campo.
+     */
+    public static final String MASCARA = "#########-##";
+
     @Override
     public Object getAsObject(FacesContext fc, UIComponent uic, String string) {
-        return string == null || string.trim().isEmpty() ? null : Long.valueOf(string.replace("-", ""));
+        if (string == null) return null;
+        long cpf = Mascaras.leNumero(string, 11, ".-");
+        if (cpf == Mascaras.SEM_DIGITOS) return null;
+        if (cpf == Mascaras.INVALIDO)
+            throw new ConverterException(new FacesMessage("CPF \'" + string + "\' em formato incorreto."));
+        return cpf;
     }
 
     @Override
     public String getAsString(FacesContext fc, UIComponent uic, Object o) {
-        Long cpf = (Long) o;
-        return String.format("%09d-%02d", cpf / 100, cpf % 100);
+        return o == null ? "" : Mascaras.formata((Long) o, MASCARA);
     }
     
 }
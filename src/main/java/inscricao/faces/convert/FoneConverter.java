@@ -0,0 +1,55 @@
+package inscricao.faces.convert;
+
+import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+import javax.faces.component.UIComponent;
+import javax.faces.context.FacesContext;
+import javax.faces.convert.Converter;
+import javax.faces.convert.ConverterException;
+
+/**
+ * Converte telefones com DDD: armazena somente os dígitos (10 para fixos,
+ * 11 para celulares) e exibe como <code>(99) 9999-9999</code> ou
+ * <code>(99) 99999-9999</code>. Valores gravados em outro formato são
+ * exibidos sem alteração.
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "foneConverter")
+@ApplicationScoped
+public class FoneConverter implements Converter {
+
+    /**
+     * A máscara dos telefones fixos.
+     */
+    public static final String MASCARA_FIXO = "(##) ####-####";
+
+    /**
+     * A máscara dos telefones celulares.
+     */
+    public static final String MASCARA_CELULAR = "(##) #####-####";
+
+    @Override
+    public Object getAsObject(FacesContext fc, UIComponent uic, String string) {
+        if (string == null) return null;
+        int n = Mascaras.copiaCaracteres(string, 11, "()-", false);
+        if (n == 0) return null;
+        if (n < 10)
+            throw new ConverterException(new FacesMessage("Telefone \'" + string + "\' em formato incorreto."));
+        return new String(Mascaras.buffer(), 0, n);
+    }
+
+    @Override
+    public String getAsString(FacesContext fc, UIComponent uic, Object o) {
+        if (o == null) return "";
+        String fone = o.toString();
+        int n = fone.length();
+        if (n < 10 || n > 11) return fone;
+        for (int i = 0; i < n; i++) {
+            char c = fone.charAt(i);
+            if (c < '0' || c > '9') return fone;
+        }
+        return Mascaras.formata(fone, n == 10 ? MASCARA_FIXO : MASCARA_CELULAR);
+    }
+    
+}
@@ -0,0 +1,125 @@
+package inscricao.faces.convert;
+
+/**
+ * Rotinas comuns dos conversores de campos com máscara.
+ * A leitura percorre os caracteres da entrada diretamente e a formatação
+ * preenche a máscara em um <code>char[]</code> reutilizado por thread, de modo
+ * que a única alocação é a <code>String</code> resultante.
+ * <p>
+ * Nas máscaras, <code>#</code> indica a posição de um dígito (ou caractere
+ * alfanumérico); os demais caracteres são copiados.
+ *
+ * @author Vitor Yudi Hansen
+ */
+final class Mascaras {
+
+    /** Retorno de {@link #leNumero} quando a entrada não tem dígitos. */
+    static final long SEM_DIGITOS = -1;
+    /** Retorno de {@link #leNumero} quando a entrada é inválida. */
+    static final long INVALIDO = -2;
+
+    private static final int TAMANHO_BUFFER = 32;
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>();
+
+    private Mascaras() {
+    }
+
+    /**
+     * Retorna o buffer da thread corrente.
+     */
+    static char[] buffer() {
+        char[] b = BUFFER.get();
+        if (b == null) {
+            b = new char[TAMANHO_BUFFER];
+            BUFFER.set(b);
+        }
+        return b;
+    }
+
+    private static boolean isSeparador(char c, String separadores) {
+        return c == ' ' || separadores.indexOf(c) >= 0;
+    }
+
+    /**
+     * Lê um número com no máximo <code>maxDigitos</code> dígitos, ignorando
+     * os separadores.
+     * @return O número, {@link #SEM_DIGITOS} ou {@link #INVALIDO}
+     */
+    static long leNumero(String s, int maxDigitos, String separadores) {
+        long valor = 0;
+        int digitos = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > maxDigitos) return INVALIDO;
+                valor = valor * 10 + (c - '0');
+            } else if (!isSeparador(c, separadores)) {
+                return INVALIDO;
+            }
+        }
+        return digitos == 0 ? SEM_DIGITOS : valor;
+    }
+
+    /**
+     * Copia os dígitos (e, se <code>alfanumerico</code>, as letras, em
+     * maiúsculas) para o buffer da thread, ignorando os separadores.
+     * @return O número de caracteres copiados, ou -1 se a entrada for inválida
+     * ou tiver mais de <code>maxCaracteres</code>
+     */
+    static int copiaCaracteres(String s, int maxCaracteres, String separadores, boolean alfanumerico) {
+        char[] b = buffer();
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'z' && alfanumerico) c -= 'a' - 'A';
+            if (c >= '0' && c <= '9' || c >= 'A' && c <= 'Z' && alfanumerico) {
+                if (n == maxCaracteres) return -1;
+                b[n++] = c;
+            } else if (!isSeparador(c, separadores)) {
+                return -1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Formata um número não negativo na máscara, completando com zeros à esquerda.
+     */
+    static String formata(long valor, String mascara) {
+        char[] b = buffer();
+        for (int i = mascara.length() - 1; i >= 0; i--) {
+            char m = mascara.charAt(i);
+            if (m == '#') {
+                b[i] = (char) ('0' + valor % 10);
+                valor /= 10;
+            } else {
+                b[i] = m;
+            }
+        }
+        return new String(b, 0, mascara.length());
+    }
+
+    /**
+     * Formata os caracteres na máscara. O número de caracteres deve ser igual
+     * ao número de posições da máscara.
+     */
+    static String formata(CharSequence valor, String mascara) {
+        char[] b = buffer();
+        for (int i = 0, j = 0; i < mascara.length(); i++) {
+            char m = mascara.charAt(i);
+            b[i] = m == '#' ? valor.charAt(j++) : m;
+        }
+        return new String(b, 0, mascara.length());
+    }
+
+    /**
+     * Retorna o número de posições da máscara.
+     */
+    static int posicoes(String mascara) {
+        int n = 0;
+        for (int i = 0; i < mascara.length(); i++) {
+            if (mascara.charAt(i) == '#') n++;
+        }
+        return n;
+    }
+}
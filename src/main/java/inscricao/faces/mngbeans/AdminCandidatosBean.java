@@ -0,0 +1,117 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.PageBean;
+import inscricao.faces.model.CandidatosDataModel;
+import inscricao.persistence.FiltroCandidatos;
+import inscricao.persistence.entity.Idioma;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import javax.faces.bean.ManagedBean;
+import javax.faces.bean.ViewScoped;
+import javax.faces.model.SelectItem;
+
+/**
+ * A listagem administrativa de candidatos (admin/candidatos.xhtml).
+ *
+ * @author Vitor Yudi Hansen
+ * @see CandidatosDataModel
+ */
+@ManagedBean
+@ViewScoped
+public class AdminCandidatosBean extends PageBean {
+    private static final long serialVersionUID = 1L;
+
+    private final CandidatosDataModel modelo = new CandidatosDataModel();
+    private String estado;
+    private Integer idioma;
+    private String instituicao;
+    private Date dataInicial;
+    private Date dataFinal;
+
+    public CandidatosDataModel getModelo() {
+        return modelo;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Integer getIdioma() {
+        return idioma;
+    }
+
+    public void setIdioma(Integer idioma) {
+        this.idioma = idioma;
+    }
+
+    public String getInstituicao() {
+        return instituicao;
+    }
+
+    public void setInstituicao(String instituicao) {
+        this.instituicao = instituicao;
+    }
+
+    public Date getDataInicial() {
+        return dataInicial;
+    }
+
+    public void setDataInicial(Date dataInicial) {
+        this.dataInicial = dataInicial;
+    }
+
+    public Date getDataFinal() {
+        return dataFinal;
+    }
+
+    public void setDataFinal(Date dataFinal) {
+        this.dataFinal = dataFinal;
+    }
+
+    public List<SelectItem> getIdiomaItemList() {
+        IdiomaCatalogoBean catalogo = (IdiomaCatalogoBean) getBean("idiomaCatalogo");
+        return catalogo.getItens();
+    }
+
+    /**
+     * Retorna a descrição do idioma para a coluna da tabela.
+     * @param codigo O código do idioma
+     * @return A descrição, ou o código se o idioma não existir
+     */
+    public String descricaoIdioma(Integer codigo) {
+        IdiomaCatalogoBean catalogo = (IdiomaCatalogoBean) getBean("idiomaCatalogo");
+        Idioma i = codigo == null ? null : catalogo.getIdioma(codigo);
+        return i != null ? i.getDescricao() : String.valueOf(codigo);
+    }
+
+    /**
+     * Aplica os filtros informados; a data final inclui o dia inteiro.
+     */
+    public void filtraAction() {
+        Date fim = null;
+        if (dataFinal != null) {
+            Calendar c = Calendar.getInstance();
+            c.setTime(dataFinal);
+            c.add(Calendar.DAY_OF_MONTH, 1);
+            fim = c.getTime();
+        }
+        modelo.setFiltro(new FiltroCandidatos(estado, idioma, instituicao, dataInicial, fim));
+    }
+
+    /**
+     * Remove os filtros.
+     */
+    public void limpaAction() {
+        estado = null;
+        idioma = null;
+        instituicao = null;
+        dataInicial = null;
+        dataFinal = null;
+        modelo.setFiltro(FiltroCandidatos.TODOS);
+    }
+}
@@ -0,0 +1,71 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.ConjuntoLong;
+import javax.annotation.PostConstruct;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * Os CPFs já inscritos, mantidos em memória para detectar inscrições
+ * repetidas sem consultar o banco. O conjunto é carregado na inicialização
+ * e atualizado a cada inscrição gravada; a chave primária de
+ * <code>candidato</code> continua garantindo a unicidade.
+ * <p>
+ * Se a carga falhar (banco indisponível na inicialização),
+ * {@link #isCarregado()} retorna <code>false</code> e a verificação deve ser
+ * feita no banco.
+ *
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "cpfsInscritos", eager = true)
+@ApplicationScoped
+public class CPFsInscritosBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ConjuntoLong cpfs = new ConjuntoLong(4096);
+    private volatile boolean carregado;
+
+    @PostConstruct
+    public void inicializa() {
+        try {
+            long inicio = System.nanoTime();
+            int n = new CandidatoJpaController().percorreCPFs(cpfs::adiciona);
+            carregado = true;
+            log(String.format("%d CPFs inscritos carregados em %d ms", n, (System.nanoTime() - inicio) / 1000000));
+        } catch (RuntimeException e) {
+            log("Não foi possível carregar os CPFs inscritos", e);
+        }
+    }
+
+    /**
+     * Retorna <code>true</code> se o conjunto foi carregado do banco.
+     * @return <code>true</code> se carregado
+     */
+    public boolean isCarregado() {
+        return carregado;
+    }
+
+    /**
+     * Retorna <code>true</code> se o CPF já estiver inscrito. Só é conclusivo
+     * se {@link #isCarregado()}.
+     * @param cpf O CPF
+     * @return <code>true</code> se inscrito
+     */
+    public boolean isInscrito(long cpf) {
+        return cpfs.contem(cpf);
+    }
+
+    /**
+     * Registra um CPF cuja inscrição foi gravada no banco.
+     * @param cpf O CPF
+     */
+    public void registra(long cpf) {
+        cpfs.adiciona(cpf);
+    }
+
+    public int getNumInscritos() {
+        return cpfs.getTamanho();
+    }
+}
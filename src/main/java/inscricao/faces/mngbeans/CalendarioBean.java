@@ -0,0 +1,115 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.util.CalendarioUteis;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import javax.annotation.PostConstruct;
+import javax.faces.FacesException;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * Calendário de dias úteis da aplicação e as datas da GRU.
+ * Os feriados são lidos de <code>inscricao/config/feriados.txt</code> na
+ * inicialização. O vencimento e a competência formatados são calculados uma
+ * vez por dia e mantidos em cache.
+ *
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "calendario", eager = true)
+@ApplicationScoped
+public class CalendarioBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * O arquivo de feriados, no classpath.
+     */
+    public static final String ARQUIVO_FERIADOS = "/inscricao/config/feriados.txt";
+
+    /**
+     * Prazo de vencimento da GRU, em dias úteis após a inscrição.
+     */
+    public static final int PRAZO_VENCIMENTO = 1;
+
+    /**
+     * Anos cobertos pelo calendário antes e depois do ano corrente.
+     */
+    private static final int ANOS_ANTES = 1;
+    private static final int ANOS_DEPOIS = 5;
+
+    private static final ZoneId FUSO = ZoneId.of("America/Sao_Paulo");
+    private static final DateTimeFormatter FORMATO_VENCIMENTO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_COMPETENCIA = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private transient CalendarioUteis calendario;
+    private transient volatile DatasGRU datas;
+
+    /**
+     * As datas da GRU de um dia. Imutável.
+     */
+    private static final class DatasGRU {
+        final LocalDate hoje;
+        final String vencimento;
+        final String competencia;
+
+        DatasGRU(LocalDate hoje, LocalDate vencimento) {
+            this.hoje = hoje;
+            this.vencimento = FORMATO_VENCIMENTO.format(vencimento);
+            this.competencia = FORMATO_COMPETENCIA.format(vencimento);
+        }
+    }
+
+    @PostConstruct
+    public void inicializa() {
+        int ano = LocalDate.now(FUSO).getYear();
+        try (InputStream in = CalendarioBean.class.getResourceAsStream(ARQUIVO_FERIADOS)) {
+            if (in == null)
+                throw new FacesException("Arquivo de feriados não encontrado: " + ARQUIVO_FERIADOS);
+            Reader r = new InputStreamReader(in, StandardCharsets.UTF_8);
+            calendario = CalendarioUteis.carrega(r, ano - ANOS_ANTES, ano + ANOS_DEPOIS);
+        } catch (IOException e) {
+            throw new FacesException("Não foi possível ler o arquivo de feriados", e);
+        }
+    }
+
+    /**
+     * Retorna as datas da GRU de hoje, recalculando-as na virada do dia.
+     */
+    private DatasGRU datas() {
+        LocalDate hoje = LocalDate.now(FUSO);
+        DatasGRU d = datas;
+        if (d == null || !d.hoje.equals(hoje)) {
+            d = new DatasGRU(hoje, calendario.adicionaDiasUteis(hoje, PRAZO_VENCIMENTO));
+            datas = d;
+        }
+        return d;
+    }
+
+    public CalendarioUteis getCalendario() {
+        return calendario;
+    }
+
+    /**
+     * Retorna a data de vencimento da GRU emitida hoje, no formato dd/MM/yyyy.
+     * @return O vencimento
+     */
+    public String getVencimento() {
+        return datas().vencimento;
+    }
+
+    /**
+     * Retorna a competência (mês do vencimento) da GRU emitida hoje, no
+     * formato MM/yyyy.
+     * @return A competência
+     */
+    public String getCompetencia() {
+        return datas().competencia;
+    }
+}
@@ -0,0 +1,65 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.CandidatoJpaController;
+import inscricao.persistence.FiltroCandidatos;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * Contagens de candidatos por filtro, usadas como total aproximado da
+ * listagem administrativa. Cada contagem é refeita no banco no máximo a cada
+ * {@link #VALIDADE} segundos, e não a cada troca de página.
+ *
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "contagemCandidatos")
+@ApplicationScoped
+public class ContagemCandidatosBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /** Validade de uma contagem, em segundos. */
+    public static final long VALIDADE = 60;
+
+    /** Número de filtros distintos guardados; ao ultrapassar o cache é esvaziado. */
+    private static final int MAX_FILTROS = 256;
+
+    private static final class Contagem {
+        private final int valor;
+        private final long expira;
+
+        private Contagem(int valor, long expira) {
+            this.valor = valor;
+            this.expira = expira;
+        }
+    }
+
+    private final transient ConcurrentMap<FiltroCandidatos, Contagem> contagens =
+            new ConcurrentHashMap<FiltroCandidatos, Contagem>();
+
+    /**
+     * Retorna o número de candidatos que atendem ao filtro, possivelmente
+     * desatualizado em até {@link #VALIDADE} segundos.
+     * @param filtro O filtro
+     * @return O número de candidatos
+     */
+    public int getContagem(FiltroCandidatos filtro) {
+        long agora = System.nanoTime();
+        Contagem c = contagens.get(filtro);
+        if (c != null && agora - c.expira < 0) return c.valor;
+        int valor = new CandidatoJpaController().contaCandidatos(filtro);
+        if (contagens.size() >= MAX_FILTROS) contagens.clear();
+        contagens.put(filtro, new Contagem(valor, agora + TimeUnit.SECONDS.toNanos(VALIDADE)));
+        return valor;
+    }
+
+    /**
+     * Descarta as contagens guardadas.
+     */
+    public void invalida() {
+        contagens.clear();
+    }
+}
@@ -0,0 +1,66 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.CandidatoJpaController;
+import inscricao.persistence.FilaInscricao;
+import java.io.IOException;
+import java.nio.file.Paths;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * A fila de gravação adiada das inscrições. Habilitada somente se o
+ * parâmetro de contexto <code>inscricao.DIARIO_INSCRICOES</code> informar o
+ * arquivo do diário; caso contrário as inscrições são gravadas diretamente
+ * no banco.
+ *
+ * @author Vitor Yudi Hansen
+ * @see FilaInscricao
+ */
+@ManagedBean(name = "filaInscricao", eager = true)
+@ApplicationScoped
+public class FilaInscricaoBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nome do parâmetro de contexto com o caminho do diário de inscrições.
+     */
+    public static final String PARAM_DIARIO = "inscricao.DIARIO_INSCRICOES";
+
+    private transient FilaInscricao fila;
+
+    @PostConstruct
+    public void inicializa() {
+        String caminho = getExternalContext().getInitParameter(PARAM_DIARIO);
+        if (caminho == null || caminho.trim().isEmpty()) return;
+        try {
+            CPFsInscritosBean inscritos = getFacesContext().getApplication().evaluateExpressionGet(
+                    getFacesContext(), "#{cpfsInscritos}", CPFsInscritosBean.class);
+            fila = new FilaInscricao(Paths.get(caminho.trim()), new CandidatoJpaController(), inscritos::registra);
+            log("Fila de inscrições habilitada: " + caminho);
+        } catch (IOException e) {
+            log("Não foi possível abrir o diário de inscrições " + caminho, e);
+        }
+    }
+
+    @PreDestroy
+    public void finaliza() {
+        if (fila != null) {
+            try {
+                fila.close();
+            } catch (IOException e) {
+                log("Erro ao fechar o diário de inscrições", e);
+            }
+        }
+    }
+
+    /**
+     * Retorna a fila de inscrições.
+     * @return A fila, ou <code>null</code> se estiver desabilitada
+     */
+    public FilaInscricao getFila() {
+        return fila;
+    }
+}
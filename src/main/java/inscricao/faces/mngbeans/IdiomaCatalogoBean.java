@@ -0,0 +1,168 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.IdiomaJpaController;
+import inscricao.persistence.entity.Idioma;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+import javax.faces.model.SelectItem;
+
+/**
+ * Catálogo dos idiomas, compartilhado por toda a aplicação.
+ * Os idiomas são carregados na inicialização e mantidos em um instantâneo
+ * imutável com a lista de <code>SelectItem</code> já montada e o mapa
+ * código → idioma, de modo que as páginas não acessam o banco para obter
+ * esses dados de referência.
+ * <p>
+ * A atualização é feita por cópia: um novo instantâneo é montado e publicado
+ * de uma só vez, sem bloquear os leitores. Isso ocorre ao expirar o tempo de
+ * validade (parâmetro de contexto <code>inscricao.IDIOMA_CACHE_TTL</code>, em
+ * segundos; padrão 600) ou ao chamar {@link #invalida()}. Se a carga
+ * falhar, o instantâneo anterior continua em uso e uma nova tentativa só é
+ * feita após {@link #ESPERA_APOS_FALHA} segundos, para que os acessos das
+ * páginas não consultem o banco a cada expressão enquanto ele estiver
+ * indisponível.
+ *
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "idiomaCatalogo", eager = true)
+@ApplicationScoped
+public class IdiomaCatalogoBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nome do parâmetro de contexto com o tempo de validade, em segundos.
+     */
+    public static final String PARAM_TTL = "inscricao.IDIOMA_CACHE_TTL";
+
+    /**
+     * Tempo de validade padrão, em segundos.
+     */
+    public static final long TTL_PADRAO = 600;
+
+    /**
+     * Espera entre tentativas de carga após uma falha, em segundos.
+     */
+    public static final long ESPERA_APOS_FALHA = 30;
+
+    private static final Instantaneo VAZIO = new Instantaneo(Collections.<Idioma>emptyList(), 0);
+
+    private volatile Instantaneo atual = VAZIO;
+    private volatile boolean invalido;
+    private volatile boolean falhou;
+    private volatile long falhaEm;
+    private final AtomicBoolean carregando = new AtomicBoolean();
+    private long ttl = TimeUnit.SECONDS.toNanos(TTL_PADRAO);
+
+    /**
+     * Os dados do catálogo em um dado momento. Imutável.
+     */
+    private static final class Instantaneo {
+        final List<SelectItem> itens;
+        final Map<Integer, Idioma> porCodigo;
+        final long carregadoEm;
+
+        Instantaneo(List<Idioma> idiomas, long carregadoEm) {
+            List<SelectItem> l = new ArrayList<SelectItem>(idiomas.size());
+            Map<Integer, Idioma> m = new HashMap<Integer, Idioma>(idiomas.size() * 2);
+            for (Idioma id : idiomas) {
+                l.add(new SelectItem(id.getCodigo(), id.getDescricao()));
+                m.put(id.getCodigo(), id);
+            }
+            this.itens = Collections.unmodifiableList(l);
+            this.porCodigo = Collections.unmodifiableMap(m);
+            this.carregadoEm = carregadoEm;
+        }
+    }
+
+    @PostConstruct
+    public void inicializa() {
+        String param = getExternalContext().getInitParameter(PARAM_TTL);
+        if (param != null) {
+            try {
+                ttl = TimeUnit.SECONDS.toNanos(Long.parseLong(param.trim()));
+            } catch (NumberFormatException e) {
+                log(String.format("Valor inválido para %s: %s. Usando %d", PARAM_TTL, param, TTL_PADRAO));
+            }
+        }
+        carrega();
+    }
+
+    /**
+     * Recarrega o catálogo do banco e publica o novo instantâneo. Se outra
+     * thread já estiver recarregando, retorna sem fazer nada. Em caso de erro
+     * o instantâneo anterior é mantido, ainda expirado ou inválido, e o
+     * momento da falha é registrado para a espera até a próxima tentativa.
+     */
+    private void carrega() {
+        if (!carregando.compareAndSet(false, true)) return;
+        boolean eraInvalido = invalido;
+        try {
+            invalido = false;
+            List<Idioma> idiomas = new IdiomaJpaController().findAll();
+            atual = new Instantaneo(idiomas, System.nanoTime());
+            falhou = false;
+        } catch (RuntimeException e) {
+            if (eraInvalido) invalido = true;
+            falhaEm = System.nanoTime();
+            falhou = true;
+            log("Não foi possível carregar o catálogo de idiomas", e);
+        } finally {
+            carregando.set(false);
+        }
+    }
+
+    /**
+     * Retorna o instantâneo corrente, recarregando-o se estiver expirado ou
+     * se ainda não tiver sido carregado, exceto durante a espera após uma
+     * falha.
+     */
+    private Instantaneo instantaneo() {
+        Instantaneo i = atual;
+        long agora = System.nanoTime();
+        if ((i == VAZIO || invalido || agora - i.carregadoEm > ttl)
+                && !(falhou && agora - falhaEm < TimeUnit.SECONDS.toNanos(ESPERA_APOS_FALHA))) {
+            carrega();
+            i = atual;
+        }
+        return i;
+    }
+
+    /**
+     * Marca o instantâneo corrente como expirado e recarrega o catálogo. Deve
+     * ser chamado após alterações na tabela de idiomas. Até a nova carga ser
+     * publicada os leitores continuam vendo o instantâneo anterior. A carga é
+     * tentada imediatamente, mesmo durante a espera após uma falha.
+     */
+    public void invalida() {
+        invalido = true;
+        carrega();
+    }
+
+    /**
+     * Retorna os itens de seleção dos idiomas. A lista é imutável e
+     * compartilhada; não deve ser alterada.
+     * @return Os itens de seleção
+     */
+    public List<SelectItem> getItens() {
+        return instantaneo().itens;
+    }
+
+    /**
+     * Retorna o idioma com o código especificado.
+     * A instância é compartilhada e não deve ser alterada.
+     * @param codigo O código do idioma
+     * @return O idioma, ou <code>null</code> se não existir
+     */
+    public Idioma getIdioma(Integer codigo) {
+        return instantaneo().porCodigo.get(codigo);
+    }
+}
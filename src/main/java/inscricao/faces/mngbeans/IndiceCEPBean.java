@@ -0,0 +1,77 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.util.IndiceCEP;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * O índice local de CEPs da aplicação, aberto na inicialização.
+ * O arquivo é informado pelo parâmetro de contexto
+ * <code>inscricao.ARQUIVO_CEP</code>; sem o parâmetro é usado
+ * <code>/WEB-INF/cep.idx</code>. Se o arquivo não existir a busca de
+ * endereços fica desabilitada e qualquer CEP bem formado é aceito.
+ *
+ * @author Vitor Yudi Hansen
+ * @see IndiceCEP
+ */
+@ManagedBean(name = "indiceCEP", eager = true)
+@ApplicationScoped
+public class IndiceCEPBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nome do parâmetro de contexto com o caminho do arquivo de CEPs.
+     */
+    public static final String PARAM_ARQUIVO = "inscricao.ARQUIVO_CEP";
+
+    private static final String ARQUIVO_PADRAO = "/WEB-INF/cep.idx";
+
+    private transient IndiceCEP indice;
+
+    @PostConstruct
+    public void inicializa() {
+        String param = getExternalContext().getInitParameter(PARAM_ARQUIVO);
+        String caminho = param != null ? param : getServletContext().getRealPath(ARQUIVO_PADRAO);
+        if (caminho == null) {
+            log("Índice de CEPs não disponível: " + ARQUIVO_PADRAO);
+            return;
+        }
+        Path arquivo = Paths.get(caminho);
+        if (!Files.isRegularFile(arquivo)) {
+            log("Índice de CEPs não encontrado: " + arquivo);
+            return;
+        }
+        try {
+            indice = IndiceCEP.abre(arquivo);
+            log(String.format("%d faixas de CEP carregadas de %s", indice.getNumRegistros(), arquivo));
+        } catch (IOException e) {
+            log("Não foi possível abrir o índice de CEPs " + arquivo, e);
+        }
+    }
+
+    @PreDestroy
+    public void finaliza() {
+        if (indice != null) {
+            try {
+                indice.close();
+            } catch (IOException e) {
+                log("Erro ao fechar o índice de CEPs", e);
+            }
+        }
+    }
+
+    /**
+     * Retorna o índice de CEPs.
+     * @return O índice, ou <code>null</code> se não estiver disponível
+     */
+    public IndiceCEP getIndice() {
+        return indice;
+    }
+}
@@ -1,22 +1,18 @@
 package inscricao.faces.mngbeans;
 
-import inscricao.faces.convert.CEPConverter;
-import inscricao.faces.convert.CPFConverter;
-import inscricao.faces.validator.CPFValidator;
 import inscricao.persistence.entity.Candidato;
 import inscricao.persistence.entity.Idioma;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.List;
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.RequestScoped;
+import javax.faces.event.AjaxBehaviorEvent;
 import javax.faces.model.SelectItem;
-import javax.persistence.EntityManager;
 import exemplo.faces.support.PageBean;
-import exemplo.persistence.controller.IdiomaJpaController;
-import exemplo.persistence.controller.JpaController;
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.IndiceCEP;
+import exemplo.util.MedidorTempo;
+import exemplo.util.MunicipiosIBGE;
+import inscricao.persistence.FilaInscricao;
 
 /**
  *
@@ -27,11 +23,6 @@ import exemplo.persistence.controller.JpaController;
 public class InscricaoBean extends PageBean {
     private Candidato candidato = new Candidato(new Idioma(1)); // inicialmente ingles
     private boolean linkGRUVisivel = false;
-    private CPFConverter cpfConverter = new CPFConverter();
-    private CEPConverter cepConverter = new CEPConverter();
-    private CPFValidator cpfValidator = new CPFValidator();
-    private SimpleDateFormat formatDataVencto = new SimpleDateFormat("dd/MM/yyyy");
-    private SimpleDateFormat formatCompetencia = new SimpleDateFormat("MM/yyyy");
 
     public Candidato getCandidato() {
         return candidato;
@@ -41,79 +32,185 @@ public class InscricaoBean extends PageBean {
         this.candidato = candidato;
     }
 
-    public CEPConverter getCepConverter() {
-        return cepConverter;
-    }
-
-    public CPFConverter getCpfConverter() {
-        return cpfConverter;
-    }
-
-    public CPFValidator getCpfValidator() {
-        return cpfValidator;
-    }
  
-    private boolean validaCandidato() {
-        JpaController ctl = new JpaController();
-        EntityManager em = ctl.getEntityManager();
-        try {
-            Candidato c = em.find(Candidato.class, candidato.getCpf());
-            return c == null;
-        } finally {
-            em.close();
-        }
+    /**
+     * Retorna o candidato já inscrito com o CPF informado. O banco só é
+     * consultado se o CPF constar dos CPFs inscritos em memória, ou se estes
+     * não puderam ser carregados.
+     * @return O candidato inscrito ou <code>null</code>
+     */
+    private Candidato buscaInscrito() {
+        CPFsInscritosBean inscritos = (CPFsInscritosBean) getBean("cpfsInscritos");
+        if (inscritos.isCarregado() && !inscritos.isInscrito(candidato.getCpf())) return null;
+        return new CandidatoJpaController().findCandidato(candidato.getCpf());
     }
     
     public List<SelectItem> getIdiomaItemList() {
-        IdiomaJpaController ctl = new IdiomaJpaController();
-        EntityManager em = ctl.getEntityManager();
-        
-        try {
-            List<SelectItem> itens = new ArrayList<SelectItem>();
-            List<Idioma> idiomas = ctl.findAll();
-            for (Idioma id: idiomas) {
-                itens.add(new SelectItem(id.getCodigo(), id.getDescricao()));
-            }
-            return itens;
-        } finally {
-            em.close();
-        }
+        IdiomaCatalogoBean catalogo = (IdiomaCatalogoBean) getBean("idiomaCatalogo");
+        return catalogo.getItens();
     }
     
     public boolean isLinkGRUVisivel() {
         return linkGRUVisivel;
     }
     
+    /**
+     * Substitui a cidade e a UF informadas pelos nomes oficiais do IBGE,
+     * quando encontrados.
+     */
+    private void padronizaCidade() {
+        MunicipiosBean municipios = (MunicipiosBean) getBean("municipios");
+        String cidade = municipios.getTabela().canonicaCidade(candidato.getEstado(), candidato.getCidade());
+        if (cidade != null) candidato.setCidade(cidade);
+        String uf = MunicipiosIBGE.canonicaUF(candidato.getEstado());
+        if (uf != null) candidato.setEstado(uf);
+    }
+
+    /**
+     * Preenche o endereço a partir do índice local de CEPs, se o CEP
+     * informado for encontrado.
+     * @param event O evento ajax do campo CEP
+     */
+    public void preencheEndereco(AjaxBehaviorEvent event) {
+        Integer cep = candidato.getCep();
+        IndiceCEP indice = ((IndiceCEPBean) getBean("indiceCEP")).getIndice();
+        if (cep == null || indice == null) return;
+        int registro = indice.busca(cep);
+        if (registro < 0) return;
+        String logradouro = indice.get(registro, IndiceCEP.Campo.LOGRADOURO);
+        // localidades com CEP único não têm logradouro
+        if (!logradouro.isEmpty()) candidato.setEndereco(logradouro);
+        String bairro = indice.get(registro, IndiceCEP.Campo.BAIRRO);
+        if (!bairro.isEmpty()) candidato.setBairro(bairro);
+        candidato.setCidade(indice.get(registro, IndiceCEP.Campo.CIDADE));
+        candidato.setEstado(indice.get(registro, IndiceCEP.Campo.UF));
+    }
+
+    /**
+     * Retorna o número de referência da GRU do candidato.
+     * @return O número de referência ou uma string vazia
+     */
+    public String getReferenciaGRU() {
+        Long referencia = candidato.getReferencia();
+        return referencia == null ? "" : referencia.toString();
+    }
+
+    /**
+     * Avisa, ao sair do campo CPF, se o CPF informado já está inscrito.
+     * @param event O evento ajax do campo CPF
+     */
+    public void verificaCPF(AjaxBehaviorEvent event) {
+        Long cpf = candidato.getCpf();
+        CPFsInscritosBean inscritos = (CPFsInscritosBean) getBean("cpfsInscritos");
+        if (cpf == null || !inscritos.isCarregado()) return;
+        FilaInscricao fila = ((FilaInscricaoBean) getBean("filaInscricao")).getFila();
+        if (inscritos.isInscrito(cpf) || (fila != null && fila.getPendente(cpf) != null))
+            warn(event.getComponent(), "Este CPF já está inscrito");
+    }
+
     public String getDataVencimento() {
-        GregorianCalendar hoje = new GregorianCalendar();
-        hoje.add(Calendar.DAY_OF_MONTH, 1);
-        return formatDataVencto.format(hoje.getTime());
+        CalendarioBean calendario = (CalendarioBean) getBean("calendario");
+        return calendario.getVencimento();
     }
     
     public String getCompetencia() {
-        GregorianCalendar hoje = new GregorianCalendar();
-        hoje.add(Calendar.DAY_OF_MONTH, 1);
-        return formatCompetencia.format(hoje.getTime());
+        CalendarioBean calendario = (CalendarioBean) getBean("calendario");
+        return calendario.getCompetencia();
     }
     
+    /**
+     * Informa que o CPF já está inscrito. O número de referência gravado e o
+     * link da GRU só são exibidos se o RG e o e-mail informados coincidirem
+     * com os da inscrição, para que quem digitar o CPF de outra pessoa não
+     * obtenha a GRU dela.
+     * @param inscrito A inscrição existente, ou <code>null</code> se não encontrada
+     */
+    private void informaJaInscrito(Candidato inscrito) {
+        error("Este CPF já está inscrito");
+        candidato.setReferencia(null);
+        if (inscrito != null && mesmoTexto(candidato.getRg(), inscrito.getRg())
+                && mesmoTexto(candidato.getEmail(), inscrito.getEmail())) {
+            candidato.setReferencia(inscrito.getReferencia());
+            linkGRUVisivel = true;
+        }
+    }
+
+    private static boolean mesmoTexto(String informado, String gravado) {
+        return informado != null && gravado != null && informado.trim().equalsIgnoreCase(gravado.trim());
+    }
+
     public void inscricaoAction() {
-        JpaController ctl = new JpaController();
-        EntityManager em = ctl.getEntityManager();
+        MetricasBean metricas = (MetricasBean) getBean("metricas");
+        long inicio = System.nanoTime();
+        MedidorTempo.Resultado resultado = MedidorTempo.Resultado.FALHA;
+        try {
+            resultado = inscreve();
+        } finally {
+            metricas.getMedidorInscricoes().registra(System.nanoTime() - inicio, resultado);
+        }
+    }
+
+    /**
+     * Inscreve o candidato, diretamente ou pela fila de gravação adiada.
+     * @return O resultado: recusa se o CPF já estiver inscrito
+     */
+    private MedidorTempo.Resultado inscreve() {
+        FilaInscricao fila = ((FilaInscricaoBean) getBean("filaInscricao")).getFila();
+        if (fila != null) return enfileiraInscricao(fila);
         try {
-            if (validaCandidato()) {
-                em.getTransaction().begin();
-                em.persist(candidato);
-                em.getTransaction().commit();
-                info("Inscrição realizada com sucesso");
-            } else {
-                error("Este CPF já está inscrito");
+            Candidato inscrito = buscaInscrito();
+            if (inscrito == null) {
+                ReferenciaGRUBean referenciaGRU = (ReferenciaGRUBean) getBean("referenciaGRU");
+                candidato.setReferencia(referenciaGRU.proxima());
+                padronizaCidade();
+                CandidatoJpaController ctl = new CandidatoJpaController();
+                if (ctl.inscreveSeAusente(candidato)) {
+                    ((CPFsInscritosBean) getBean("cpfsInscritos")).registra(candidato.getCpf());
+                    info("Inscrição realizada com sucesso");
+                    linkGRUVisivel = true;
+                    return MedidorTempo.Resultado.SUCESSO;
+                }
+                // inscrito por outra requisição após a verificação
+                inscrito = ctl.findCandidato(candidato.getCpf());
             }
-            linkGRUVisivel = true;
+            informaJaInscrito(inscrito);
+            return MedidorTempo.Resultado.RECUSA;
         } catch (Exception e) {
             log("Incrição teste classificatorio", e);
             error("Não foi possível completar a operação: " + e.getLocalizedMessage());
-        } finally {
-            em.close();
+            return MedidorTempo.Resultado.FALHA;
+        }
+    }
+
+    /**
+     * Coloca a inscrição na fila de gravação adiada; o candidato é gravado
+     * no banco logo em seguida, em lote.
+     * @param fila A fila de inscrições
+     * @return O resultado: recusa se o CPF já estiver inscrito
+     */
+    private MedidorTempo.Resultado enfileiraInscricao(FilaInscricao fila) {
+        try {
+            Candidato inscrito = fila.getPendente(candidato.getCpf());
+            if (inscrito == null) inscrito = buscaInscrito();
+            if (inscrito == null) {
+                ReferenciaGRUBean referenciaGRU = (ReferenciaGRUBean) getBean("referenciaGRU");
+                candidato.setReferencia(referenciaGRU.proxima());
+                padronizaCidade();
+                if (fila.enfileira(candidato)) {
+                    info("Inscrição recebida com sucesso");
+                    linkGRUVisivel = true;
+                    return MedidorTempo.Resultado.SUCESSO;
+                }
+                // pendente na fila ou, se gravado diretamente, já no banco
+                inscrito = fila.getPendente(candidato.getCpf());
+                if (inscrito == null) inscrito = new CandidatoJpaController().findCandidato(candidato.getCpf());
+            }
+            informaJaInscrito(inscrito);
+            return MedidorTempo.Resultado.RECUSA;
+        } catch (Exception e) {
+            log("Incrição teste classificatorio", e);
+            error("Não foi possível completar a operação: " + e.getLocalizedMessage());
+            return MedidorTempo.Resultado.FALHA;
         }
     }
 }
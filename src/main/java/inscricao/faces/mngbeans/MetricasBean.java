@@ -0,0 +1,346 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.JpaController;
+import exemplo.util.MedidorTempo;
+import inscricao.persistence.FilaInscricao;
+import inscricao.persistence.PersistenciaListener;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.servlet.ServletContext;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Reúne as métricas de execução da aplicação: vazão e latência das
+ * inscrições, uso do pool de conexões e as estatísticas do Hibernate
+ * (consultas, entidades e cache de segundo nível). Publicadas via JMX em
+ * {@value #NOME_JMX} e em JSON por <code>MetricasServlet</code>.
+ * <p>
+ * As medidas das inscrições usam {@link MedidorTempo}, sem bloqueio; as
+ * demais são lidas somente quando as métricas são consultadas. O pool é
+ * lido por reflexão, pois a sua classe é do contêiner: os nomes dos
+ * métodos do DBCP e do tomcat-jdbc são aceitos, e o que o pool não
+ * informar (o DBCP não informa as threads em espera) vale -1.
+ *
+ * @author Vitor Yudi Hansen
+ * @see MetricasMXBean
+ */
+@ManagedBean(name = "metricas", eager = true)
+@ApplicationScoped
+public class MetricasBean extends ApplicationBean implements MetricasMXBean {
+    private static final long serialVersionUID = 1L;
+
+    /** O nome do MBean. */
+    public static final String NOME_JMX = "inscricao:type=Metricas";
+
+    /** Número máximo de consultas listadas no resumo, das mais lentas. */
+    public static final int CONSULTAS_RESUMO = 20;
+
+    private final MedidorTempo inscricoes = new MedidorTempo();
+    private transient ServletContext contexto;
+    private transient Object pool;
+    private transient ObjectName nomeJMX;
+
+    @PostConstruct
+    public void inicializa() {
+        contexto = getServletContext();
+        try {
+            pool = new InitialContext().lookup(PersistenciaListener.DATASOURCE);
+        } catch (NamingException e) {
+            log("Pool de conexões não encontrado; métricas do pool indisponíveis", e);
+        }
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName(NOME_JMX);
+            if (servidor.isRegistered(nome)) servidor.unregisterMBean(nome);
+            servidor.registerMBean(this, nome);
+            nomeJMX = nome;
+        } catch (JMException e) {
+            log("Não foi possível publicar as métricas via JMX", e);
+        }
+    }
+
+    @PreDestroy
+    public void finaliza() {
+        if (nomeJMX == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeJMX);
+        } catch (JMException e) {
+            log("Erro ao remover o MBean de métricas", e);
+        }
+    }
+
+    /**
+     * Retorna o medidor das inscrições, alimentado por
+     * <code>InscricaoBean.inscricaoAction()</code>.
+     * @return O medidor
+     */
+    public MedidorTempo getMedidorInscricoes() {
+        return inscricoes;
+    }
+
+    private Statistics getEstatisticas() {
+        return ((HibernateEntityManagerFactory) new JpaController().getEMFactory())
+                .getSessionFactory().getStatistics();
+    }
+
+    /**
+     * Lê um valor do pool pelo primeiro dos métodos que existir.
+     * @return O valor, ou -1
+     */
+    private long valorPool(String... metodos) {
+        Object p = pool;
+        if (p == null) return -1;
+        for (String nome : metodos) {
+            try {
+                Method m = p.getClass().getMethod(nome);
+                return ((Number) m.invoke(p)).longValue();
+            } catch (NoSuchMethodException e) {
+                // tenta o próximo nome
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static double taxa(long acertos, long faltas) {
+        long total = acertos + faltas;
+        return total > 0 ? (double) acertos / total : 0;
+    }
+
+    @Override
+    public long getInscricoes() {
+        return inscricoes.getContagem();
+    }
+
+    @Override
+    public long getInscricoesRecusadas() {
+        return inscricoes.getRecusas();
+    }
+
+    @Override
+    public long getInscricoesComFalha() {
+        return inscricoes.getFalhas();
+    }
+
+    @Override
+    public double getInscricoesPorSegundo() {
+        return inscricoes.getPorSegundo();
+    }
+
+    @Override
+    public double getInscricaoTempoMedioMs() {
+        return inscricoes.getTempoMedioMs();
+    }
+
+    @Override
+    public double getInscricaoTempoMaximoMs() {
+        return inscricoes.getTempoMaximoMs();
+    }
+
+    @Override
+    public double getInscricaoPercentil95Ms() {
+        return inscricoes.getPercentilMs(95);
+    }
+
+    @Override
+    public double getInscricaoPercentil99Ms() {
+        return inscricoes.getPercentilMs(99);
+    }
+
+    @Override
+    public long getCandidatosInscritos() {
+        CPFsInscritosBean inscritos = (CPFsInscritosBean) contexto.getAttribute("cpfsInscritos");
+        return inscritos != null && inscritos.isCarregado() ? inscritos.getNumInscritos() : -1;
+    }
+
+    @Override
+    public long getInscricoesPendentes() {
+        FilaInscricaoBean filaBean = (FilaInscricaoBean) contexto.getAttribute("filaInscricao");
+        FilaInscricao fila = filaBean != null ? filaBean.getFila() : null;
+        return fila != null ? fila.getTamanho() : 0;
+    }
+
+    @Override
+    public long getConexoesAtivas() {
+        return valorPool("getNumActive", "getActive");
+    }
+
+    @Override
+    public long getConexoesOciosas() {
+        return valorPool("getNumIdle", "getIdle");
+    }
+
+    @Override
+    public long getConexoesEmEspera() {
+        return valorPool("getWaitCount", "getNumWaiters");
+    }
+
+    @Override
+    public long getConexoesMaximo() {
+        return valorPool("getMaxActive", "getMaxTotal");
+    }
+
+    @Override
+    public long getConsultasExecutadas() {
+        return getEstatisticas().getQueryExecutionCount();
+    }
+
+    @Override
+    public long getConsultaTempoMaximoMs() {
+        return getEstatisticas().getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getConsultaMaisLenta() {
+        return getEstatisticas().getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getEntidadesCarregadas() {
+        return getEstatisticas().getEntityLoadCount();
+    }
+
+    @Override
+    public long getEntidadesInseridas() {
+        return getEstatisticas().getEntityInsertCount();
+    }
+
+    @Override
+    public long getEntidadesAtualizadas() {
+        return getEstatisticas().getEntityUpdateCount();
+    }
+
+    @Override
+    public double getCacheTaxaAcerto() {
+        Statistics s = getEstatisticas();
+        return taxa(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount());
+    }
+
+    @Override
+    public double getCacheConsultasTaxaAcerto() {
+        Statistics s = getEstatisticas();
+        return taxa(s.getQueryCacheHitCount(), s.getQueryCacheMissCount());
+    }
+
+    @Override
+    public Map<String, Double> getCacheTaxaAcertoPorRegiao() {
+        Statistics s = getEstatisticas();
+        Map<String, Double> m = new TreeMap<String, Double>();
+        for (String regiao : s.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics r = s.getSecondLevelCacheStatistics(regiao);
+            if (r != null) m.put(regiao, taxa(r.getHitCount(), r.getMissCount()));
+        }
+        return m;
+    }
+
+    @Override
+    public void zera() {
+        inscricoes.zera();
+        getEstatisticas().clear();
+    }
+
+    /**
+     * Monta um resumo de todas as métricas, com o detalhe das consultas
+     * mais lentas e de cada região do cache, para ser enviado em JSON.
+     * @return Mapas aninhados com números e textos
+     */
+    public Map<String, Object> getResumo() {
+        Map<String, Object> resumo = new LinkedHashMap<String, Object>();
+
+        Map<String, Object> insc = new LinkedHashMap<String, Object>();
+        insc.put("total", getInscricoes());
+        insc.put("recusadas", getInscricoesRecusadas());
+        insc.put("falhas", getInscricoesComFalha());
+        insc.put("porSegundo", getInscricoesPorSegundo());
+        insc.put("tempoMedioMs", getInscricaoTempoMedioMs());
+        insc.put("tempoMaximoMs", getInscricaoTempoMaximoMs());
+        insc.put("percentil95Ms", getInscricaoPercentil95Ms());
+        insc.put("percentil99Ms", getInscricaoPercentil99Ms());
+        insc.put("candidatosInscritos", getCandidatosInscritos());
+        insc.put("pendentes", getInscricoesPendentes());
+        resumo.put("inscricoes", insc);
+
+        Map<String, Object> conexoes = new LinkedHashMap<String, Object>();
+        conexoes.put("ativas", getConexoesAtivas());
+        conexoes.put("ociosas", getConexoesOciosas());
+        conexoes.put("emEspera", getConexoesEmEspera());
+        conexoes.put("maximo", getConexoesMaximo());
+        resumo.put("pool", conexoes);
+
+        Statistics s = getEstatisticas();
+        Map<String, Object> hibernate = new LinkedHashMap<String, Object>();
+        hibernate.put("sessoesAbertas", s.getSessionOpenCount());
+        hibernate.put("transacoes", s.getTransactionCount());
+        hibernate.put("conexoesObtidas", s.getConnectCount());
+        hibernate.put("consultasExecutadas", s.getQueryExecutionCount());
+        hibernate.put("consultaTempoMaximoMs", s.getQueryExecutionMaxTime());
+        hibernate.put("consultaMaisLenta", s.getQueryExecutionMaxTimeQueryString());
+        hibernate.put("entidadesCarregadas", s.getEntityLoadCount());
+        hibernate.put("entidadesBuscadas", s.getEntityFetchCount());
+        hibernate.put("entidadesInseridas", s.getEntityInsertCount());
+        hibernate.put("entidadesAtualizadas", s.getEntityUpdateCount());
+        hibernate.put("cacheAcertos", s.getSecondLevelCacheHitCount());
+        hibernate.put("cacheFaltas", s.getSecondLevelCacheMissCount());
+        hibernate.put("cacheTaxaAcerto", taxa(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()));
+        hibernate.put("cacheConsultasAcertos", s.getQueryCacheHitCount());
+        hibernate.put("cacheConsultasFaltas", s.getQueryCacheMissCount());
+        hibernate.put("cacheConsultasTaxaAcerto", taxa(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()));
+
+        List<String> consultas = new ArrayList<String>(Arrays.asList(s.getQueries()));
+        final Map<String, QueryStatistics> porConsulta = new LinkedHashMap<String, QueryStatistics>();
+        for (String q : consultas) porConsulta.put(q, s.getQueryStatistics(q));
+        Collections.sort(consultas, (a, b) -> Long.compare(
+                porConsulta.get(b).getExecutionMaxTime(), porConsulta.get(a).getExecutionMaxTime()));
+        List<Object> lentas = new ArrayList<Object>();
+        for (String q : consultas.subList(0, Math.min(CONSULTAS_RESUMO, consultas.size()))) {
+            QueryStatistics qs = porConsulta.get(q);
+            Map<String, Object> c = new LinkedHashMap<String, Object>();
+            c.put("consulta", q);
+            c.put("execucoes", qs.getExecutionCount());
+            c.put("tempoMedioMs", qs.getExecutionAvgTime());
+            c.put("tempoMaximoMs", qs.getExecutionMaxTime());
+            c.put("linhas", qs.getExecutionRowCount());
+            c.put("cacheAcertos", qs.getCacheHitCount());
+            lentas.add(c);
+        }
+        hibernate.put("consultas", lentas);
+
+        Map<String, Object> regioes = new TreeMap<String, Object>();
+        for (String regiao : s.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics r = s.getSecondLevelCacheStatistics(regiao);
+            if (r == null) continue;
+            Map<String, Object> m = new LinkedHashMap<String, Object>();
+            m.put("acertos", r.getHitCount());
+            m.put("faltas", r.getMissCount());
+            m.put("gravacoes", r.getPutCount());
+            m.put("taxaAcerto", taxa(r.getHitCount(), r.getMissCount()));
+            m.put("naMemoria", r.getElementCountInMemory());
+            m.put("noDisco", r.getElementCountOnDisk());
+            regioes.put(regiao, m);
+        }
+        hibernate.put("regioesCache", regioes);
+        resumo.put("hibernate", hibernate);
+        return resumo;
+    }
+}
@@ -0,0 +1,70 @@
+package inscricao.faces.mngbeans;
+
+import java.util.Map;
+
+/**
+ * As métricas da aplicação publicadas via JMX, em
+ * {@value MetricasBean#NOME_JMX}. Valores desconhecidos são -1.
+ *
+ * @author Vitor Yudi Hansen
+ * @see MetricasBean
+ */
+public interface MetricasMXBean {
+
+    // inscrições (InscricaoBean.inscricaoAction)
+
+    long getInscricoes();
+
+    long getInscricoesRecusadas();
+
+    long getInscricoesComFalha();
+
+    double getInscricoesPorSegundo();
+
+    double getInscricaoTempoMedioMs();
+
+    double getInscricaoTempoMaximoMs();
+
+    double getInscricaoPercentil95Ms();
+
+    double getInscricaoPercentil99Ms();
+
+    long getCandidatosInscritos();
+
+    long getInscricoesPendentes();
+
+    // pool de conexões (jdbc/exemplo-jsf)
+
+    long getConexoesAtivas();
+
+    long getConexoesOciosas();
+
+    long getConexoesEmEspera();
+
+    long getConexoesMaximo();
+
+    // Hibernate
+
+    long getConsultasExecutadas();
+
+    long getConsultaTempoMaximoMs();
+
+    String getConsultaMaisLenta();
+
+    long getEntidadesCarregadas();
+
+    long getEntidadesInseridas();
+
+    long getEntidadesAtualizadas();
+
+    double getCacheTaxaAcerto();
+
+    double getCacheConsultasTaxaAcerto();
+
+    Map<String, Double> getCacheTaxaAcertoPorRegiao();
+
+    /**
+     * Zera as medidas das inscrições e as estatísticas do Hibernate.
+     */
+    void zera();
+}
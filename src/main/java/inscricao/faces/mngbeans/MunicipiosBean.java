@@ -0,0 +1,67 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.util.MunicipiosIBGE;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.faces.FacesException;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * A tabela de municípios do IBGE da aplicação, lida na inicialização do
+ * arquivo informado no parâmetro de contexto
+ * <code>inscricao.ARQUIVO_MUNICIPIOS</code> ou, se ausente, de
+ * <code>inscricao/config/municipios.txt</code> no classpath.
+ *
+ * @author Vitor Yudi Hansen
+ * @see MunicipiosIBGE
+ */
+@ManagedBean(name = "municipios", eager = true)
+@ApplicationScoped
+public class MunicipiosBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * O arquivo de municípios, no classpath.
+     */
+    public static final String ARQUIVO_MUNICIPIOS = "/inscricao/config/municipios.txt";
+
+    /**
+     * Nome do parâmetro de contexto com o caminho de um arquivo de
+     * municípios externo, no mesmo formato.
+     */
+    public static final String PARAM_ARQUIVO = "inscricao.ARQUIVO_MUNICIPIOS";
+
+    private transient MunicipiosIBGE tabela;
+
+    @PostConstruct
+    public void inicializa() {
+        String caminho = getExternalContext().getInitParameter(PARAM_ARQUIVO);
+        boolean externo = caminho != null && !caminho.trim().isEmpty();
+        String origem = externo ? caminho.trim() : ARQUIVO_MUNICIPIOS;
+        try (InputStream in = externo
+                ? Files.newInputStream(Paths.get(origem))
+                : MunicipiosBean.class.getResourceAsStream(ARQUIVO_MUNICIPIOS)) {
+            if (in == null)
+                throw new FacesException("Arquivo de municípios não encontrado: " + origem);
+            tabela = MunicipiosIBGE.carrega(new InputStreamReader(in, StandardCharsets.UTF_8));
+            log(String.format("%d municípios carregados de %s", tabela.getNumMunicipios(), origem));
+            List<String> semMunicipios = tabela.getUFsSemMunicipios();
+            if (!semMunicipios.isEmpty())
+                log("UFs sem municípios carregados, com cidade não validada: " + semMunicipios);
+        } catch (IOException e) {
+            throw new FacesException("Não foi possível ler o arquivo de municípios " + origem, e);
+        }
+    }
+
+    public MunicipiosIBGE getTabela() {
+        return tabela;
+    }
+}
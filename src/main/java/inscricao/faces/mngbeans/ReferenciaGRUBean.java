@@ -0,0 +1,38 @@
+package inscricao.faces.mngbeans;
+
+import exemplo.faces.support.ApplicationBean;
+import exemplo.persistence.controller.ReferenciaJpaController;
+import exemplo.util.CalculadoraDV;
+import exemplo.util.GeradorReferencia;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+
+/**
+ * Gera os números de referência das GRUs dos candidatos: valor base
+ * reservado em blocos da sequence do banco seguido de um DV módulo 11.
+ *
+ * @author Vitor Yudi Hansen
+ * @see GeradorReferencia
+ */
+@ManagedBean(name = "referenciaGRU", eager = true)
+@ApplicationScoped
+public class ReferenciaGRUBean extends ApplicationBean {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Número de referências por bloco; deve ser igual ao incremento da
+     * sequence <code>referencia_gru_seq</code>.
+     */
+    public static final int TAMANHO_BLOCO = 1000;
+
+    private final transient GeradorReferencia gerador =
+            new GeradorReferencia(new ReferenciaJpaController(), TAMANHO_BLOCO, CalculadoraDV.modulo11());
+
+    /**
+     * Retorna um novo número de referência.
+     * @return O número de referência com DV
+     */
+    public long proxima() {
+        return gerador.proxima();
+    }
+}
@@ -0,0 +1,112 @@
+package inscricao.faces.model;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import inscricao.faces.mngbeans.ContagemCandidatosBean;
+import inscricao.persistence.CandidatoResumo;
+import inscricao.persistence.FiltroCandidatos;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.faces.context.FacesContext;
+import org.icefaces.ace.model.table.LazyDataModel;
+import org.icefaces.ace.model.table.SortCriteria;
+
+/**
+ * Modelo preguiçoso da listagem administrativa de candidatos, ordenada por
+ * <code>(dataHora, cpf)</code>.
+ * <p>
+ * As páginas são buscadas por chave (<i>keyset</i>) em vez de
+ * <code>OFFSET</code>: o modelo guarda a primeira e a última linha de cada
+ * página já lida, e cada página nova parte da referência mais próxima
+ * &mdash; a linha imediatamente anterior, a imediatamente posterior, o
+ * início ou o fim da listagem. Assim avançar, voltar, ir à primeira ou à
+ * última página custam o mesmo; só um salto para uma página distante de
+ * todas as referências percorre as linhas intermediárias.
+ * <p>
+ * O total de linhas vem de {@link ContagemCandidatosBean}, que o atualiza
+ * periodicamente; a última página usa esse total e pode ficar incompleta ou
+ * omitir inscrições muito recentes até a próxima atualização. Por isso as
+ * páginas lidas a partir do fim não são guardadas como referência: sua
+ * posição só é exata enquanto o total estiver atualizado.
+ * A ordenação e os filtros das colunas da tabela são ignorados; os filtros
+ * são definidos por {@link #setFiltro(FiltroCandidatos)}.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class CandidatosDataModel extends LazyDataModel<CandidatoResumo> {
+    private static final long serialVersionUID = 1L;
+
+    /** Máximo de linhas de referência guardadas; ao ultrapassar, são descartadas. */
+    private static final int MAX_REFERENCIAS = 1024;
+
+    private FiltroCandidatos filtro = FiltroCandidatos.TODOS;
+    /** Linhas já lidas, pela posição na listagem. */
+    private final TreeMap<Integer, CandidatoResumo> referencias = new TreeMap<Integer, CandidatoResumo>();
+
+    public FiltroCandidatos getFiltro() {
+        return filtro;
+    }
+
+    /**
+     * Define os filtros e descarta as referências da listagem anterior.
+     * @param filtro Os filtros
+     */
+    public void setFiltro(FiltroCandidatos filtro) {
+        this.filtro = filtro;
+        referencias.clear();
+    }
+
+    @Override
+    public List<CandidatoResumo> load(int first, int pageSize, SortCriteria[] sortCriteria, Map<String, String> filters) {
+        int total = contagem();
+        setRowCount(total);
+        if (pageSize <= 0 || first >= total) return Collections.emptyList();
+        int fimPagina = first + pageSize;
+
+        // a partir do início
+        CandidatoResumo referencia = null;
+        boolean posterior = true;
+        int salto = first;
+        int limite = pageSize;
+        boolean doFimDaListagem = false;
+        // após a linha conhecida mais próxima antes da página
+        Map.Entry<Integer, CandidatoResumo> antes = referencias.floorEntry(first - 1);
+        if (antes != null && first - 1 - antes.getKey() < salto) {
+            referencia = antes.getValue();
+            salto = first - 1 - antes.getKey();
+        }
+        // antes da linha conhecida mais próxima após a página
+        Map.Entry<Integer, CandidatoResumo> depois = referencias.ceilingEntry(fimPagina);
+        if (depois != null && depois.getKey() - fimPagina < salto) {
+            referencia = depois.getValue();
+            posterior = false;
+            salto = depois.getKey() - fimPagina;
+        }
+        // a partir do fim
+        int doFim = Math.max(0, total - fimPagina);
+        if (doFim < salto) {
+            referencia = null;
+            posterior = false;
+            salto = doFim;
+            limite = Math.min(pageSize, total - first);
+            doFimDaListagem = true;
+        }
+
+        List<CandidatoResumo> pagina = new CandidatoJpaController()
+                .buscaPagina(filtro, referencia, posterior, salto, limite);
+        if (!pagina.isEmpty() && !doFimDaListagem) {
+            if (referencias.size() >= MAX_REFERENCIAS) referencias.clear();
+            referencias.put(first, pagina.get(0));
+            referencias.put(first + pagina.size() - 1, pagina.get(pagina.size() - 1));
+        }
+        return pagina;
+    }
+
+    private int contagem() {
+        FacesContext fc = FacesContext.getCurrentInstance();
+        ContagemCandidatosBean contagem = fc.getApplication().evaluateExpressionGet(
+                fc, "#{contagemCandidatos}", ContagemCandidatosBean.class);
+        return contagem.getContagem(filtro);
+    }
+}
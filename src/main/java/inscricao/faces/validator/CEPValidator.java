@@ -4,23 +4,42 @@
  */
 package inscricao.faces.validator;
 
+import exemplo.util.IndiceCEP;
+import inscricao.faces.mngbeans.IndiceCEPBean;
 import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.validator.Validator;
 import javax.faces.validator.ValidatorException;
 
 /**
- *
+ * Valida o CEP convertido pelo <code>CEPConverter</code> (8 dígitos) e, se o
+ * índice local de CEPs estiver disponível, a sua existência.
  * @author Vitor Yudi Hansen
  */
+@ManagedBean(name = "cepValidator")
+@ApplicationScoped
 public class CEPValidator implements Validator {
     
     @Override
     public void validate(FacesContext fc, UIComponent uic, Object o) throws ValidatorException {
-        String cep = o.toString();
-        if (!cep.matches("d{8}-d{3}")) {        
-            throw new ValidatorException(new FacesMessage("CEP \'" + cep + "\' em formato incorreto."));
+        int cep;
+        if (o instanceof Number) {
+            cep = ((Number) o).intValue();
+        } else {
+            String s = o.toString();
+            if (!s.matches("\\d{5}-?\\d{3}"))
+                throw new ValidatorException(new FacesMessage("CEP \'" + s + "\' em formato incorreto."));
+            cep = Integer.parseInt(s.replace("-", ""));
         }
+        if (cep < 0 || cep > IndiceCEP.MAX_CEP)
+            throw new ValidatorException(new FacesMessage("CEP \'" + o + "\' em formato incorreto."));
+
+        IndiceCEPBean indiceCEP = fc.getApplication().evaluateExpressionGet(fc, "#{indiceCEP}", IndiceCEPBean.class);
+        IndiceCEP indice = indiceCEP.getIndice();
+        if (indice != null && !indice.contem(cep))
+            throw new ValidatorException(new FacesMessage("CEP \'" + String.format("%05d-%03d", cep / 1000, cep % 1000) + "\' não encontrado."));
     }
 }
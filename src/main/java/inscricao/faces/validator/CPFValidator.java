@@ -5,29 +5,30 @@
 package inscricao.faces.validator;
 
 import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.validator.Validator;
 import javax.faces.validator.ValidatorException;
+import exemplo.util.CalculadoraDV;
 import exemplo.util.DigitoVerificadorCPF;
 
 /**
  *
  * @author Vitor Yudi Hansen
  */
+@ManagedBean(name = "cpfValidator")
+@ApplicationScoped
 public class CPFValidator implements Validator {
 
     @Override
     public void validate(FacesContext fc, UIComponent uic, Object o) throws ValidatorException {
-        String cpf = String.format("%011d", (Long) o);
-        if (!cpf.matches("\\d{11}")) {        
+        long cpf = (Long) o;
+        if (cpf < 0 || cpf > DigitoVerificadorCPF.MAX_NUMERO) {
             throw new ValidatorException(new FacesMessage("CPF \'" + cpf + "\' em formato incorreto."));
-        } else {
-            DigitoVerificadorCPF dvcpf = new DigitoVerificadorCPF(cpf.substring(0, 9));
-            int dv = Integer.parseInt(cpf.substring(9, 11));
-            if (!dvcpf.isValido(dv)) {
-                throw new ValidatorException(new FacesMessage("CPF \'" + cpf + "\' inválido"));
-            }
+        } else if (!CalculadoraDV.cpf().isValido(cpf)) {
+            throw new ValidatorException(new FacesMessage("CPF \'" + String.format("%011d", cpf) + "\' inválido"));
         }
     }
     
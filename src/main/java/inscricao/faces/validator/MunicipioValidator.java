@@ -0,0 +1,46 @@
+package inscricao.faces.validator;
+
+import exemplo.util.MunicipiosIBGE;
+import inscricao.faces.mngbeans.MunicipiosBean;
+import javax.faces.application.FacesMessage;
+import javax.faces.bean.ApplicationScoped;
+import javax.faces.bean.ManagedBean;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIInput;
+import javax.faces.context.FacesContext;
+import javax.faces.validator.Validator;
+import javax.faces.validator.ValidatorException;
+
+/**
+ * Valida a UF e o par cidade/UF contra a tabela do IBGE.
+ * Deve ser associado ao campo da UF, posicionado após o campo da cidade no
+ * formulário; o id do campo da cidade é informado pelo atributo
+ * <code>cidade</code> (padrão <code>"cidade"</code>):
+ * <pre>
+ * &lt;f:validator binding="#{municipioValidator}"/&gt;
+ * &lt;f:attribute name="cidade" value="cidade"/&gt;
+ * </pre>
+ * @author Vitor Yudi Hansen
+ */
+@ManagedBean(name = "municipioValidator")
+@ApplicationScoped
+public class MunicipioValidator implements Validator {
+
+    @Override
+    public void validate(FacesContext fc, UIComponent uic, Object o) throws ValidatorException {
+        if (o == null) return;
+        String uf = o.toString();
+        if (MunicipiosIBGE.indiceUF(uf) < 0)
+            throw new ValidatorException(new FacesMessage("UF \'" + uf + "\' inválida."));
+
+        Object id = uic.getAttributes().get("cidade");
+        UIComponent c = uic.findComponent(id == null ? "cidade" : id.toString());
+        if (!(c instanceof UIInput) || !((UIInput) c).isValid()) return;
+        Object cidade = ((UIInput) c).getValue();
+        if (cidade == null) return;
+
+        MunicipiosBean municipios = fc.getApplication().evaluateExpressionGet(fc, "#{municipios}", MunicipiosBean.class);
+        if (!municipios.getTabela().isValido(uf, cidade.toString()))
+            throw new ValidatorException(new FacesMessage("Cidade \'" + cidade + "\' não encontrada em " + MunicipiosIBGE.canonicaUF(uf) + "."));
+    }
+}
@@ -0,0 +1,59 @@
+package inscricao.persistence;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Os campos de um candidato exibidos na listagem administrativa, obtidos por
+ * projeção (<code>SELECT NEW</code>) sem carregar a entidade. O par
+ * <code>(dataHora, cpf)</code> é a chave da paginação.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class CandidatoResumo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long cpf;
+    private final String nome;
+    private final String instituicao;
+    private final String estado;
+    private final Integer idioma;
+    private final Date dataHora;
+
+    public CandidatoResumo(Long cpf, String nome, String instituicao, String estado, Integer idioma, Date dataHora) {
+        this.cpf = cpf;
+        this.nome = nome;
+        this.instituicao = instituicao;
+        this.estado = estado;
+        this.idioma = idioma;
+        this.dataHora = dataHora;
+    }
+
+    public Long getCpf() {
+        return cpf;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getInstituicao() {
+        return instituicao;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    /**
+     * Retorna o código do idioma.
+     * @return O código
+     */
+    public Integer getIdioma() {
+        return idioma;
+    }
+
+    public Date getDataHora() {
+        return dataHora;
+    }
+}
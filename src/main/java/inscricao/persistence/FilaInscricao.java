@@ -0,0 +1,346 @@
+package inscricao.persistence;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.Diario;
+import inscricao.persistence.entity.Candidato;
+import inscricao.persistence.entity.Idioma;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.validation.ConstraintViolationException;
+
+/**
+ * Fila de gravação adiada (<i>write-behind</i>) das inscrições.
+ * <p>
+ * {@link #enfileira(Candidato)} grava o candidato em um {@link Diario} local
+ * e retorna assim que o registro está em disco, sem usar uma conexão do
+ * banco. Uma thread de gravação retira os candidatos da fila em lotes de até
+ * {@link #TAMANHO_LOTE} e os insere em uma única transação, com inserções em
+ * lote JDBC. O diário é truncado quando todos os registros foram gravados.
+ * <p>
+ * Na criação, os registros que ficaram no diário (p. ex. após uma queda) são
+ * recolocados na fila. A gravação ignora CPFs já cadastrados, portanto o
+ * reprocessamento é idempotente.
+ * <p>
+ * Se um lote falhar repetidamente, os candidatos são gravados um a um para
+ * isolar registros inválidos: só são descartados, com um log de erro, os que
+ * falharem por violação de restrição ou dado inválido (SQLState das classes
+ * 23 e 22, ou validação do bean). Qualquer outra falha (p. ex. banco
+ * indisponível) mantém no lote os candidatos ainda não gravados, e a
+ * gravação é tentada novamente com espera crescente.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class FilaInscricao implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(FilaInscricao.class.getName());
+
+    /**
+     * Número máximo de candidatos por transação; igual ao
+     * <code>hibernate.jdbc.batch_size</code> do persistence.xml.
+     */
+    public static final int TAMANHO_LOTE = 50;
+
+    /** Falhas de um lote antes de gravar os candidatos um a um. */
+    private static final int FALHAS_ANTES_ISOLAR = 3;
+    private static final long ESPERA_MAXIMA = TimeUnit.SECONDS.toMillis(30);
+    private static final long ESPERA_ENCERRAMENTO = TimeUnit.SECONDS.toMillis(30);
+
+    /** Versão do registro; a 1 não tinha a data e hora da inscrição. */
+    private static final byte VERSAO = 2;
+
+    private final Diario diario;
+    private final CandidatoJpaController controller;
+    private final LongConsumer gravados;
+    private final LinkedBlockingQueue<Candidato> fila = new LinkedBlockingQueue<Candidato>();
+    /** Os candidatos ainda não gravados no banco, por CPF. */
+    private final ConcurrentMap<Long, Candidato> pendentes = new ConcurrentHashMap<Long, Candidato>();
+    private final Thread escritor;
+    private volatile boolean ativa = true;
+
+    /**
+     * Abre o diário, recoloca na fila os registros pendentes e inicia a
+     * thread de gravação.
+     * @param arquivo O arquivo do diário
+     * @param controller O controlador usado para gravar os candidatos
+     * @param gravados Recebe, na thread de gravação, o CPF de cada candidato
+     * gravado no banco (ou já existente)
+     * @throws IOException se o diário não puder ser aberto ou lido
+     */
+    public FilaInscricao(Path arquivo, CandidatoJpaController controller, LongConsumer gravados) throws IOException {
+        this.controller = controller;
+        this.gravados = gravados;
+        this.diario = new Diario(arquivo);
+        diario.percorre(dados -> {
+            Candidato c = decodifica(dados);
+            pendentes.put(c.getCpf(), c);
+            fila.add(c);
+        });
+        if (!fila.isEmpty())
+            logger.log(Level.INFO, "{0} inscrições pendentes recuperadas do diário", fila.size());
+        escritor = new Thread(this::executa, "inscricao-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Grava o candidato no diário e coloca uma cópia dele na fila; o
+     * candidato informado não é retido nem alterado pela fila. A data e hora
+     * da inscrição, se não informada, é o momento desta chamada, e não o da
+     * gravação no banco.
+     * <p>
+     * Se o registro for acrescentado ao diário mas a sincronização com o
+     * disco falhar, a inscrição não é confirmada pela fila: o candidato é
+     * gravado diretamente no banco antes de retornar. Se também essa gravação
+     * falhar, o registro é confirmado no diário para que não seja reprocessado
+     * e a falha é lançada; só uma queda antes do truncamento seguinte do
+     * diário, com o registro já em disco, ainda o gravaria.
+     * @param candidato O candidato, já validado
+     * @return <code>false</code> se já houver um candidato com o mesmo CPF na
+     * fila ou, na gravação direta, no banco
+     * @throws IOException se o registro não puder ser acrescentado ao diário
+     * ou, após uma falha de sincronização, gravado no banco; nesse caso o
+     * candidato não é enfileirado
+     * @throws IllegalStateException se a fila estiver encerrada
+     */
+    public boolean enfileira(Candidato candidato) throws IOException {
+        if (!ativa) throw new IllegalStateException("Fila de inscrições encerrada");
+        byte[] dados = codifica(candidato);
+        Candidato copia = decodifica(dados);
+        Long cpf = copia.getCpf();
+        if (pendentes.putIfAbsent(cpf, copia) != null) return false;
+        try {
+            diario.grava(dados);
+        } catch (Diario.SincronizacaoException e) {
+            logger.log(Level.WARNING, "Falha na sincronização do diário; gravando o CPF " + cpf + " diretamente", e);
+            return gravaDiretamente(copia, e);
+        } catch (IOException | RuntimeException e) {
+            pendentes.remove(cpf, copia);
+            throw e;
+        }
+        fila.add(copia);
+        return true;
+    }
+
+    /**
+     * Grava no banco um candidato cujo registro está no diário sem
+     * sincronização, e confirma o registro.
+     */
+    private boolean gravaDiretamente(Candidato c, Diario.SincronizacaoException falha) throws IOException {
+        try {
+            boolean inserido = controller.inscreveSeAusente(c);
+            gravados.accept(c.getCpf());
+            return inserido;
+        } catch (RuntimeException e) {
+            falha.addSuppressed(e);
+            throw falha;
+        } finally {
+            pendentes.remove(c.getCpf(), c);
+            diario.confirma(1);
+        }
+    }
+
+    /**
+     * Retorna o candidato com o CPF que aguarda gravação.
+     * @param cpf O CPF
+     * @return O candidato, ou <code>null</code> se não estiver na fila; não
+     * deve ser alterado
+     */
+    public Candidato getPendente(Long cpf) {
+        return pendentes.get(cpf);
+    }
+
+    /**
+     * Retorna o número de candidatos que aguardam gravação.
+     * @return O tamanho da fila
+     */
+    public int getTamanho() {
+        return pendentes.size();
+    }
+
+    private void executa() {
+        List<Candidato> lote = new ArrayList<Candidato>(TAMANHO_LOTE);
+        int falhas = 0;
+        while (ativa || !fila.isEmpty() || !lote.isEmpty()) {
+            try {
+                if (lote.isEmpty()) {
+                    Candidato c = fila.poll(1, TimeUnit.SECONDS);
+                    if (c == null) continue;
+                    lote.add(c);
+                    fila.drainTo(lote, TAMANHO_LOTE - 1);
+                }
+                if (falhas < FALHAS_ANTES_ISOLAR) {
+                    controller.persisteNovos(lote);
+                    for (Candidato c : lote) gravados.accept(c.getCpf());
+                    concluido(lote);
+                } else {
+                    isolaInvalidos(lote);
+                    if (!lote.isEmpty())
+                        throw new IllegalStateException(lote.size() + " candidatos do lote não puderam ser gravados");
+                }
+                lote.clear();
+                falhas = 0;
+            } catch (InterruptedException e) {
+                // verifica novamente se a fila foi encerrada
+            } catch (IOException | RuntimeException e) {
+                falhas++;
+                logger.log(Level.WARNING, "Falha ao gravar lote de inscrições (tentativa " + falhas + ")", e);
+                if (!ativa && falhas > FALHAS_ANTES_ISOLAR) return; // permanece no diário
+                try {
+                    Thread.sleep(Math.min(ESPERA_MAXIMA, 100L << Math.min(falhas, 10)));
+                } catch (InterruptedException ie) {
+                    // continua
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava os candidatos do lote um a um. Os gravados e os descartados por
+     * erro nos dados são retirados do lote e confirmados no diário; na
+     * primeira falha de outro tipo a gravação é interrompida e os demais
+     * permanecem no lote.
+     */
+    void isolaInvalidos(List<Candidato> lote) throws IOException {
+        List<Candidato> resolvidos = new ArrayList<Candidato>();
+        for (Candidato c : lote) {
+            try {
+                controller.persisteNovos(Collections.singletonList(c));
+                gravados.accept(c.getCpf());
+            } catch (RuntimeException e) {
+                if (!isErroDados(e)) {
+                    logger.log(Level.WARNING, "Gravação individual interrompida no CPF " + c.getCpf(), e);
+                    break;
+                }
+                logger.log(Level.SEVERE, "Inscrição do CPF " + c.getCpf() + " descartada", e);
+            }
+            resolvidos.add(c);
+        }
+        if (resolvidos.isEmpty()) return;
+        lote.subList(0, resolvidos.size()).clear();
+        concluido(resolvidos);
+    }
+
+    /**
+     * Informa se a falha é causada pelos dados do registro, e não se
+     * resolverá com uma nova tentativa: violação de restrição (SQLState 23),
+     * dado inválido (SQLState 22) ou validação do bean.
+     * @param e A falha
+     * @return <code>true</code> se a falha for nos dados
+     */
+    static boolean isErroDados(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException) return true;
+            if (t instanceof SQLException) {
+                for (SQLException q = (SQLException) t; q != null; q = q.getNextException()) {
+                    String estado = q.getSQLState();
+                    if (estado != null && (estado.startsWith("23") || estado.startsWith("22"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void concluido(List<Candidato> lote) throws IOException {
+        for (Candidato c : lote)
+            pendentes.remove(c.getCpf(), c);
+        diario.confirma(lote.size());
+    }
+
+    /**
+     * Encerra a fila: novas inscrições são recusadas e a thread de gravação
+     * esvazia a fila antes de terminar. Os candidatos não gravados no prazo
+     * permanecem no diário e são recuperados na próxima criação.
+     * @throws IOException se o diário não puder ser fechado
+     */
+    @Override
+    public void close() throws IOException {
+        ativa = false;
+        try {
+            escritor.join(ESPERA_ENCERRAMENTO);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (escritor.isAlive())
+            logger.log(Level.WARNING, "{0} inscrições permanecem no diário", pendentes.size());
+        diario.close();
+    }
+
+    static byte[] codifica(Candidato c) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSAO);
+        out.writeLong(c.getDataHora() == null ? System.currentTimeMillis() : c.getDataHora().getTime());
+        out.writeLong(c.getCpf());
+        escreve(out, c.getRg());
+        escreve(out, c.getNome());
+        escreve(out, c.getInstituicao());
+        escreve(out, c.getPrograma());
+        escreve(out, c.getEndereco());
+        escreve(out, c.getBairro());
+        escreve(out, c.getCidade());
+        escreve(out, c.getEstado());
+        out.writeInt(c.getCep() == null ? -1 : c.getCep());
+        escreve(out, c.getFone());
+        escreve(out, c.getCelular());
+        escreve(out, c.getEmail());
+        out.writeInt(c.getIdioma() == null ? -1 : c.getIdioma().getCodigo());
+        out.writeLong(c.getReferencia() == null ? -1 : c.getReferencia());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Candidato decodifica(byte[] dados) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(dados));
+        byte versao = in.readByte();
+        if (versao != VERSAO && versao != 1)
+            throw new IOException(String.format("Versão de registro desconhecida (%d)", versao));
+        // registros da versão 1 ficam sem data e hora e recebem a da gravação
+        Date dataHora = versao == 1 ? null : new Date(in.readLong());
+        Candidato c = new Candidato(in.readLong());
+        c.setDataHora(dataHora);
+        c.setRg(le(in));
+        c.setNome(le(in));
+        c.setInstituicao(le(in));
+        c.setPrograma(le(in));
+        c.setEndereco(le(in));
+        c.setBairro(le(in));
+        c.setCidade(le(in));
+        c.setEstado(le(in));
+        int cep = in.readInt();
+        c.setCep(cep < 0 ? null : cep);
+        c.setFone(le(in));
+        c.setCelular(le(in));
+        c.setEmail(le(in));
+        int idioma = in.readInt();
+        c.setIdioma(idioma < 0 ? null : new Idioma(idioma));
+        long referencia = in.readLong();
+        c.setReferencia(referencia < 0 ? null : referencia);
+        return c;
+    }
+
+    private static void escreve(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String le(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
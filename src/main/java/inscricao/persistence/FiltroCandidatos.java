@@ -0,0 +1,80 @@
+package inscricao.persistence;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Os filtros da listagem administrativa de candidatos. Imutável; os campos
+ * <code>null</code> não filtram. Usado também como chave do cache de
+ * contagens.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public final class FiltroCandidatos implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Sem filtros. */
+    public static final FiltroCandidatos TODOS = new FiltroCandidatos(null, null, null, null, null);
+
+    private final String estado;
+    private final Integer idioma;
+    private final String instituicao;
+    private final Date inicio;
+    private final Date fim;
+
+    /**
+     * @param estado A UF
+     * @param idioma O código do idioma
+     * @param instituicao Parte do nome da instituição, sem diferenciar maiúsculas
+     * @param inicio A data e hora inicial da inscrição, inclusive
+     * @param fim A data e hora final da inscrição, exclusive
+     */
+    public FiltroCandidatos(String estado, Integer idioma, String instituicao, Date inicio, Date fim) {
+        this.estado = vazioNulo(estado);
+        this.idioma = idioma;
+        this.instituicao = vazioNulo(instituicao);
+        this.inicio = inicio == null ? null : new Date(inicio.getTime());
+        this.fim = fim == null ? null : new Date(fim.getTime());
+    }
+
+    private static String vazioNulo(String s) {
+        return s == null || s.trim().isEmpty() ? null : s.trim();
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public Integer getIdioma() {
+        return idioma;
+    }
+
+    public String getInstituicao() {
+        return instituicao;
+    }
+
+    public Date getInicio() {
+        return inicio == null ? null : new Date(inicio.getTime());
+    }
+
+    public Date getFim() {
+        return fim == null ? null : new Date(fim.getTime());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(estado, idioma, instituicao, inicio, fim);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof FiltroCandidatos)) {
+            return false;
+        }
+        FiltroCandidatos other = (FiltroCandidatos) object;
+        return Objects.equals(estado, other.estado) && Objects.equals(idioma, other.idioma)
+                && Objects.equals(instituicao, other.instituicao)
+                && Objects.equals(inicio, other.inicio) && Objects.equals(fim, other.fim);
+    }
+}
@@ -0,0 +1,418 @@
+package inscricao.persistence;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.CalculadoraDV;
+import exemplo.util.ConjuntoLong;
+import exemplo.util.IndiceCEP;
+import exemplo.util.LeitorCSV;
+import exemplo.util.MunicipiosIBGE;
+import inscricao.persistence.entity.Candidato;
+import inscricao.persistence.entity.Idioma;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Importação em massa de candidatos a partir de um CSV.
+ * <p>
+ * O arquivo é lido por demanda, em lotes de {@link #TAMANHO_LOTE} linhas.
+ * Cada lote é validado em paralelo no <code>ExecutorService</code> informado
+ * (CPF, CEP, UF e município, idioma, campos obrigatórios e tamanhos),
+ * enquanto a thread que chamou {@link #importa(Reader, Relatorio)} continua
+ * lendo e grava os lotes já validados, na ordem do arquivo, com
+ * {@link CandidatoJpaController#insereEmMassa(List)}. No máximo
+ * {@link #LOTES_PENDENTES} lotes ficam em memória ao mesmo tempo,
+ * qualquer que seja o tamanho do arquivo.
+ * <p>
+ * A primeira linha é o cabeçalho com os nomes das colunas, em qualquer
+ * ordem: <code>cpf, rg, nome, instituicao, programa, endereco, cidade,
+ * estado, cep, email, idioma</code> são obrigatórias e <code>bairro, fone,
+ * celular</code> opcionais; as demais são ignoradas, de modo que um arquivo
+ * exportado pode ser importado de volta. O separador (<code>,</code> ou
+ * <code>;</code>) é detectado pelo cabeçalho. O idioma pode ser o código ou
+ * a descrição.
+ * <p>
+ * CPFs já inscritos, repetidos no arquivo ou inscritos durante a importação
+ * são rejeitados. Cada linha rejeitada é informada ao {@link Relatorio}.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class ImportacaoCandidatos {
+
+    /**
+     * Recebe as linhas rejeitadas, na ordem do arquivo.
+     */
+    public interface Relatorio {
+        /**
+         * @param linha O número da linha no arquivo
+         * @param mensagem O motivo da rejeição
+         * @throws IOException se o relatório não puder ser gravado
+         */
+        void rejeitada(int linha, String mensagem) throws IOException;
+    }
+
+    /**
+     * Os totais de uma importação.
+     */
+    public static final class Resultado {
+        private int lidas;
+        private int importadas;
+
+        public int getLidas() {
+            return lidas;
+        }
+
+        public int getImportadas() {
+            return importadas;
+        }
+
+        public int getRejeitadas() {
+            return lidas - importadas;
+        }
+    }
+
+    /** Linhas por lote de validação e de gravação. */
+    public static final int TAMANHO_LOTE = 5000;
+
+    /** Lotes lidos e ainda não gravados, no máximo. */
+    public static final int LOTES_PENDENTES = 4;
+
+    private static final String[] OBRIGATORIAS = {"cpf", "rg", "nome", "instituicao", "programa",
+        "endereco", "cidade", "estado", "cep", "email", "idioma"};
+    private static final String[] OPCIONAIS = {"bairro", "fone", "celular"};
+
+    private static final int TAMANHO_MAXIMO_CABECALHO = 8192;
+
+    /** Uma linha do arquivo: os campos e, após a validação, o candidato ou o erro. */
+    private static final class Linha {
+        private final int numero;
+        private final String[] campos;
+        private Candidato candidato;
+        private String erro;
+
+        private Linha(int numero, String[] campos) {
+            this.numero = numero;
+            this.campos = campos;
+        }
+    }
+
+    private final CandidatoJpaController controller;
+    private final ExecutorService executor;
+    private final MunicipiosIBGE municipios;
+    private final IndiceCEP indiceCEP;
+    private final Map<String, Integer> idiomas;
+    private final LongPredicate inscrito;
+    private final LongConsumer importado;
+    private final LongSupplier referencias;
+
+    /**
+     * @param controller O controlador usado na gravação
+     * @param executor Executa a validação dos lotes
+     * @param municipios A tabela de municípios, ou <code>null</code> para validar só a UF
+     * @param indiceCEP O índice de CEPs, ou <code>null</code> para validar só o formato
+     * @param idiomas Os códigos dos idiomas, pelo código e pela descrição em minúsculas
+     * @param inscrito Informa se um CPF já está inscrito ou com a inscrição
+     * pendente; os demais ainda são conferidos no banco
+     * @param importado Recebe o CPF de cada candidato gravado
+     * @param referencias Gera o número de referência da GRU de cada candidato importado
+     */
+    public ImportacaoCandidatos(CandidatoJpaController controller, ExecutorService executor,
+            MunicipiosIBGE municipios, IndiceCEP indiceCEP, Map<String, Integer> idiomas,
+            LongPredicate inscrito, LongConsumer importado, LongSupplier referencias) {
+        this.controller = controller;
+        this.executor = executor;
+        this.municipios = municipios;
+        this.indiceCEP = indiceCEP;
+        this.idiomas = idiomas;
+        this.inscrito = inscrito;
+        this.importado = importado;
+        this.referencias = referencias;
+    }
+
+    /**
+     * Monta o mapa de idiomas aceito pelo construtor.
+     * @param lista Os idiomas
+     * @return Os códigos, pelo código e pela descrição em minúsculas
+     */
+    public static Map<String, Integer> mapaIdiomas(List<Idioma> lista) {
+        Map<String, Integer> m = new HashMap<String, Integer>();
+        for (Idioma i : lista) {
+            m.put(i.getCodigo().toString(), i.getCodigo());
+            m.put(i.getDescricao().trim().toLowerCase(Locale.ROOT), i.getCodigo());
+        }
+        return m;
+    }
+
+    /**
+     * Importa os candidatos do CSV.
+     * @param csv O arquivo
+     * @param relatorio Recebe as linhas rejeitadas
+     * @return Os totais
+     * @throws IOException se houver erro de leitura ou no relatório
+     * @throws IllegalArgumentException se o cabeçalho não tiver as colunas obrigatórias
+     */
+    public Resultado importa(Reader csv, Relatorio relatorio) throws IOException {
+        BufferedReader in = new BufferedReader(csv);
+        in.mark(TAMANHO_MAXIMO_CABECALHO);
+        String primeira = in.readLine();
+        if (primeira == null) throw new IllegalArgumentException("Arquivo vazio");
+        in.reset();
+        LeitorCSV leitor = new LeitorCSV(in, LeitorCSV.detectaSeparador(primeira));
+        final int[] colunas = colunas(leitor.proximo());
+
+        Resultado resultado = new Resultado();
+        ConjuntoLong vistos = new ConjuntoLong(TAMANHO_LOTE);
+        Deque<Future<List<Linha>>> pendentes = new ArrayDeque<Future<List<Linha>>>();
+        try {
+            boolean fim = false;
+            while (!fim || !pendentes.isEmpty()) {
+                while (!fim && pendentes.size() < LOTES_PENDENTES) {
+                    final List<Linha> lote = new ArrayList<Linha>(TAMANHO_LOTE);
+                    String[] campos;
+                    while (lote.size() < TAMANHO_LOTE && (campos = leitor.proximo()) != null)
+                        lote.add(new Linha(leitor.getLinha(), campos));
+                    fim = lote.size() < TAMANHO_LOTE;
+                    if (!lote.isEmpty()) {
+                        pendentes.add(executor.submit(() -> {
+                            for (Linha l : lote) valida(l, colunas);
+                            return lote;
+                        }));
+                    }
+                }
+                if (!pendentes.isEmpty())
+                    grava(aguarda(pendentes.poll()), vistos, resultado, relatorio);
+            }
+        } finally {
+            for (Future<?> f : pendentes) f.cancel(true);
+        }
+        return resultado;
+    }
+
+    private static List<Linha> aguarda(Future<List<Linha>> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Rejeita os CPFs repetidos e os já inscritos, grava o lote e informa as
+     * linhas rejeitadas. Executado somente na thread da importação.
+     * <p>
+     * Os CPFs que passam pelo predicado <code>inscrito</code> ainda são
+     * conferidos no banco (inscrições de outros nós ou com o conjunto em
+     * memória não carregado) antes de receberem o número de referência, de
+     * modo que linhas rejeitadas não consomem referências; só um conflito
+     * entre a consulta e a inserção deixa uma lacuna na sequência.
+     */
+    private void grava(List<Linha> lote, ConjuntoLong vistos, Resultado resultado, Relatorio relatorio)
+            throws IOException {
+        List<Linha> novas = new ArrayList<Linha>(lote.size());
+        List<Long> cpfs = new ArrayList<Long>(lote.size());
+        for (Linha l : lote) {
+            if (l.candidato == null) continue;
+            long cpf = l.candidato.getCpf();
+            if (!vistos.adiciona(cpf)) {
+                l.erro = "CPF repetido no arquivo";
+            } else if (inscrito.test(cpf)) {
+                l.erro = "CPF já inscrito";
+            } else {
+                novas.add(l);
+                cpfs.add(cpf);
+            }
+        }
+        Set<Long> cadastrados = controller.cadastrados(cpfs);
+        List<Candidato> validos = new ArrayList<Candidato>(novas.size());
+        for (Linha l : novas) {
+            if (cadastrados.contains(l.candidato.getCpf())) {
+                l.erro = "CPF já inscrito";
+            } else {
+                l.candidato.setReferencia(referencias.getAsLong());
+                validos.add(l.candidato);
+            }
+        }
+        Set<Long> inseridos = controller.insereEmMassa(validos);
+        resultado.lidas += lote.size();
+        resultado.importadas += inseridos.size();
+        for (Long cpf : inseridos) importado.accept(cpf);
+        for (Linha l : lote) {
+            if (l.erro == null && !inseridos.contains(l.candidato.getCpf()))
+                l.erro = "CPF já inscrito";
+            if (l.erro != null) relatorio.rejeitada(l.numero, l.erro);
+        }
+    }
+
+    /**
+     * Retorna a posição de cada coluna conhecida no cabeçalho, na ordem de
+     * {@link #OBRIGATORIAS} seguida de {@link #OPCIONAIS}; -1 para as
+     * opcionais ausentes.
+     */
+    private static int[] colunas(String[] cabecalho) {
+        if (cabecalho == null) throw new IllegalArgumentException("Arquivo vazio");
+        Map<String, Integer> posicoes = new HashMap<String, Integer>();
+        for (int i = 0; i < cabecalho.length; i++)
+            posicoes.put(cabecalho[i].trim().toLowerCase(Locale.ROOT), i);
+        int[] colunas = new int[OBRIGATORIAS.length + OPCIONAIS.length];
+        List<String> ausentes = new ArrayList<String>();
+        for (int i = 0; i < OBRIGATORIAS.length; i++) {
+            Integer p = posicoes.get(OBRIGATORIAS[i]);
+            if (p == null) ausentes.add(OBRIGATORIAS[i]);
+            colunas[i] = p == null ? -1 : p;
+        }
+        if (!ausentes.isEmpty())
+            throw new IllegalArgumentException(String.format("Colunas obrigatórias ausentes: %s", ausentes));
+        for (int i = 0; i < OPCIONAIS.length; i++) {
+            Integer p = posicoes.get(OPCIONAIS[i]);
+            colunas[OBRIGATORIAS.length + i] = p == null ? -1 : p;
+        }
+        return colunas;
+    }
+
+    // posições em colunas[]
+    private static final int CPF = 0, RG = 1, NOME = 2, INSTITUICAO = 3, PROGRAMA = 4, ENDERECO = 5,
+            CIDADE = 6, ESTADO = 7, CEP = 8, EMAIL = 9, IDIOMA = 10, BAIRRO = 11, FONE = 12, CELULAR = 13;
+
+    private static String campo(Linha l, int[] colunas, int coluna) {
+        int p = colunas[coluna];
+        if (p < 0 || p >= l.campos.length) return null;
+        String s = l.campos[p].trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    /**
+     * Valida a linha e monta o candidato, ou registra o primeiro erro.
+     * Executado em paralelo; usa somente estruturas imutáveis ou thread-safe.
+     */
+    private void valida(Linha l, int[] colunas) {
+        Candidato c = new Candidato();
+        String s = campo(l, colunas, CPF);
+        long cpf = s == null ? -1 : digitos(s, 11);
+        if (cpf < 0) {
+            l.erro = "CPF em formato incorreto";
+            return;
+        }
+        if (!CalculadoraDV.cpf().isValido(cpf)) {
+            l.erro = String.format("CPF %011d inválido", cpf);
+            return;
+        }
+        c.setCpf(cpf);
+        if ((l.erro = texto(l, colunas, RG, "RG", 20, true)) != null) return;
+        c.setRg(campo(l, colunas, RG));
+        if ((l.erro = texto(l, colunas, NOME, "Nome", 100, true)) != null) return;
+        c.setNome(campo(l, colunas, NOME));
+        if ((l.erro = texto(l, colunas, INSTITUICAO, "Instituição", 100, true)) != null) return;
+        c.setInstituicao(campo(l, colunas, INSTITUICAO));
+        if ((l.erro = texto(l, colunas, PROGRAMA, "Programa", 100, true)) != null) return;
+        c.setPrograma(campo(l, colunas, PROGRAMA));
+        if ((l.erro = texto(l, colunas, ENDERECO, "Endereço", 100, true)) != null) return;
+        c.setEndereco(campo(l, colunas, ENDERECO));
+        if ((l.erro = texto(l, colunas, BAIRRO, "Bairro", 50, false)) != null) return;
+        c.setBairro(campo(l, colunas, BAIRRO));
+        if ((l.erro = texto(l, colunas, EMAIL, "E-mail", 200, true)) != null) return;
+        String email = campo(l, colunas, EMAIL);
+        if (email.indexOf('@') <= 0) {
+            l.erro = "E-mail inválido";
+            return;
+        }
+        c.setEmail(email);
+
+        String uf = MunicipiosIBGE.canonicaUF(String.valueOf(campo(l, colunas, ESTADO)));
+        if (uf == null) {
+            l.erro = "UF inválida";
+            return;
+        }
+        c.setEstado(uf);
+        if ((l.erro = texto(l, colunas, CIDADE, "Cidade", 50, true)) != null) return;
+        String cidade = campo(l, colunas, CIDADE);
+        if (municipios != null) {
+            if (!municipios.isValido(uf, cidade)) {
+                l.erro = String.format("Município '%s' não encontrado em %s", cidade, uf);
+                return;
+            }
+            String oficial = municipios.canonicaCidade(uf, cidade);
+            if (oficial != null) cidade = oficial;
+        }
+        c.setCidade(cidade);
+
+        s = campo(l, colunas, CEP);
+        long cep = s == null ? -1 : digitos(s, 8);
+        if (cep < 0) {
+            l.erro = "CEP em formato incorreto";
+            return;
+        }
+        if (indiceCEP != null && !indiceCEP.contem((int) cep)) {
+            l.erro = String.format("CEP %08d não encontrado", cep);
+            return;
+        }
+        c.setCep((int) cep);
+
+        s = campo(l, colunas, FONE);
+        long fone = s == null ? 0 : digitos(s, 11);
+        if (fone < 0 || (s != null && fone < 1000000000L)) {
+            l.erro = "Fone em formato incorreto";
+            return;
+        }
+        c.setFone(s == null ? null : Long.toString(fone));
+        s = campo(l, colunas, CELULAR);
+        long celular = s == null ? 0 : digitos(s, 11);
+        if (celular < 0 || (s != null && celular < 1000000000L)) {
+            l.erro = "Celular em formato incorreto";
+            return;
+        }
+        c.setCelular(s == null ? null : Long.toString(celular));
+
+        s = campo(l, colunas, IDIOMA);
+        Integer idioma = s == null ? null : idiomas.get(s.toLowerCase(Locale.ROOT));
+        if (idioma == null) {
+            l.erro = "Idioma inválido";
+            return;
+        }
+        c.setIdioma(new Idioma(idioma));
+        l.candidato = c;
+    }
+
+    private static String texto(Linha l, int[] colunas, int coluna, String nome, int maximo, boolean obrigatorio) {
+        String s = campo(l, colunas, coluna);
+        if (s == null) return obrigatorio ? nome + " não informado" : null;
+        return s.length() > maximo ? String.format("%s com mais de %d caracteres", nome, maximo) : null;
+    }
+
+    /**
+     * Lê um número com até <code>maximo</code> dígitos, ignorando pontos,
+     * hífens, barras, parênteses e espaços.
+     * @return O número, ou -1 se houver outros caracteres ou dígitos demais
+     */
+    private static long digitos(String s, int maximo) {
+        long n = 0;
+        int d = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++d > maximo) return -1;
+                n = n * 10 + (c - '0');
+            } else if (c != '.' && c != '-' && c != '/' && c != '(' && c != ')' && c != ' ') {
+                return -1;
+            }
+        }
+        return d == 0 ? -1 : n;
+    }
+}
@@ -0,0 +1,164 @@
+package inscricao.persistence;
+
+import exemplo.persistence.controller.IdiomaJpaController;
+import exemplo.persistence.controller.JpaController;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.sql.DataSource;
+import net.sf.ehcache.CacheException;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.management.ManagementService;
+
+/**
+ * Inicializa a persistência na implantação da aplicação, para que a
+ * primeira requisição não pague a criação do Hibernate:
+ * <ol>
+ * <li>cria a fábrica de <code>EntityManager</code>s;</li>
+ * <li>abre {@link #CONEXOES_INICIAIS} conexões do pool ao mesmo tempo;</li>
+ * <li>executa as consultas nomeadas das entidades, validando-as contra o banco;</li>
+ * <li>carrega os idiomas no cache de segundo nível;</li>
+ * <li>publica via JMX as estatísticas de cada região do cache (acertos,
+ * faltas, remoções e tamanho), em
+ * <code>net.sf.ehcache:type=CacheStatistics,CacheManager=inscricao,*</code>.</li>
+ * </ol>
+ * O tempo de cada fase é registrado no log. Somente a criação da fábrica é
+ * obrigatória; falhas nas demais fases são registradas e a aplicação segue.
+ * Na remoção da aplicação a fábrica, e com ela o cache, é fechada.
+ * <p>
+ * Deve ser declarado no web.xml antes dos listeners do JSF, para que a
+ * fábrica já exista quando os beans de aplicação forem criados.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class PersistenciaListener implements ServletContextListener {
+
+    /** O nome JNDI do pool de conexões (ver persistence.xml e context.xml). */
+    public static final String DATASOURCE = "java:/comp/env/jdbc/exemplo-jsf";
+
+    /** Conexões abertas na inicialização; igual ao <code>maxIdle</code> do pool. */
+    public static final int CONEXOES_INICIAIS = 3;
+
+    /** O nome do gerenciador de cache do Hibernate (ver ehcache.xml). */
+    public static final String GERENCIADOR_CACHE = "inscricao";
+
+    private ServletContext contexto;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        contexto = sce.getServletContext();
+        long inicio = System.nanoTime();
+        EntityManagerFactory emf = JpaController.criaEMFactory();
+        long t = registraFase("Criação da fábrica de EntityManagers", inicio);
+        try {
+            preencheConexoes();
+            t = registraFase("Abertura de conexões", t);
+        } catch (NamingException | SQLException e) {
+            contexto.log("Não foi possível abrir as conexões iniciais", e);
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            int n = validaConsultas(em);
+            t = registraFase(n + " consultas nomeadas validadas", t);
+        } catch (RuntimeException e) {
+            contexto.log("Falha na validação das consultas", e);
+        } finally {
+            em.close();
+        }
+        try {
+            int n = new IdiomaJpaController().findAll().size();
+            t = registraFase(n + " idiomas carregados no cache", t);
+        } catch (RuntimeException e) {
+            contexto.log("Falha no carregamento dos idiomas", e);
+        }
+        try {
+            publicaEstatisticasCache();
+        } catch (CacheException e) {
+            contexto.log("Não foi possível publicar as estatísticas do cache", e);
+        }
+        registraFase("Inicialização da persistência", inicio);
+    }
+
+    private long registraFase(String fase, long inicio) {
+        long fim = System.nanoTime();
+        contexto.log(String.format("%s: %d ms", fase, (fim - inicio) / 1000000));
+        return fim;
+    }
+
+    /**
+     * Obtém as conexões ao mesmo tempo, para que o pool as crie, e as devolve.
+     */
+    private void preencheConexoes() throws NamingException, SQLException {
+        DataSource ds = (DataSource) new InitialContext().lookup(DATASOURCE);
+        List<Connection> conexoes = new ArrayList<Connection>(CONEXOES_INICIAIS);
+        try {
+            for (int i = 0; i < CONEXOES_INICIAIS; i++)
+                conexoes.add(ds.getConnection());
+        } finally {
+            for (Connection c : conexoes)
+                c.close();
+        }
+    }
+
+    /**
+     * Executa, limitadas a uma linha, as consultas nomeadas sem parâmetros
+     * declaradas nas entidades; as demais são apenas compiladas.
+     * @return O número de consultas validadas
+     */
+    private int validaConsultas(EntityManager em) {
+        int n = 0;
+        for (EntityType<?> entidade : em.getMetamodel().getEntities()) {
+            Class<?> classe = entidade.getJavaType();
+            List<NamedQuery> consultas = new ArrayList<NamedQuery>();
+            NamedQueries todas = classe.getAnnotation(NamedQueries.class);
+            if (todas != null) {
+                for (NamedQuery q : todas.value()) consultas.add(q);
+            }
+            NamedQuery uma = classe.getAnnotation(NamedQuery.class);
+            if (uma != null) consultas.add(uma);
+            for (NamedQuery nq : consultas) {
+                Query q = em.createNamedQuery(nq.name());
+                if (q.getParameters().isEmpty())
+                    q.setMaxResults(1).getResultList();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Registra no servidor JMX da plataforma um MBean de estatísticas para
+     * cada região do gerenciador de cache do Hibernate. Os MBeans são
+     * removidos pelo próprio Ehcache quando o gerenciador é encerrado, junto
+     * com a fábrica.
+     */
+    private void publicaEstatisticasCache() {
+        for (CacheManager cm : CacheManager.ALL_CACHE_MANAGERS) {
+            if (GERENCIADOR_CACHE.equals(cm.getName())) {
+                ManagementService.registerMBeans(cm, ManagementFactory.getPlatformMBeanServer(),
+                        false, false, true, true);
+                return;
+            }
+        }
+        contexto.log("Gerenciador de cache não encontrado: " + GERENCIADOR_CACHE);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        JpaController.fechaEMFactory();
+        sce.getServletContext().log("Fábrica de EntityManagers fechada");
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Date;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
@@ -16,10 +18,19 @@ import javax.validation.constraints.Size;
  */
 @Entity
 @Table(name = "candidato")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQueries({
     @NamedQuery(name = "Candidato.findAll", query = "SELECT c FROM Candidato c")})
 public class Candidato implements Serializable {
     private static final long serialVersionUID = 1L;
+    /**
+     * As colunas gravadas na inserção, na ordem usada pelos comandos nativos
+     * de <code>CandidatoJpaController</code>; <code>datahora</code> recebe o
+     * valor padrão da tabela.
+     */
+    public static final String COLUNAS_INSERCAO = "cpf, rg, nome, instituicao, programa, endereco, bairro,"
+            + " cidade, estado, cep, fone, celular, email, idioma, referencia";
     @Id
     @Basic(optional = false)
     @NotNull
@@ -80,7 +91,9 @@ public class Candidato implements Serializable {
     @ManyToOne(optional=false)
     @JoinColumn(name="idioma", referencedColumnName="codigo")
     private Idioma idioma;
-    @Column(name = "datahora", insertable=false)
+    @Column(name = "referencia", unique = true)
+    private Long referencia;
+    @Column(name = "datahora")
     @Temporal(TemporalType.TIMESTAMP)
     private Date dataHora;
 
@@ -219,6 +232,14 @@ public class Candidato implements Serializable {
         this.idioma = idioma;
     }
 
+    public Long getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(Long referencia) {
+        this.referencia = referencia;
+    }
+
     public Date getDataHora() {
         return dataHora;
     }
@@ -227,6 +248,15 @@ public class Candidato implements Serializable {
         this.dataHora = dataHora;
     }
 
+    /**
+     * Na inserção pelo <code>EntityManager</code>, usa o momento da gravação
+     * se a data e hora da inscrição não tiver sido informada.
+     */
+    @PrePersist
+    protected void defineDataHora() {
+        if (dataHora == null) dataHora = new Date();
+    }
+
     @Override
     public int hashCode() {
         int hash = 0;
@@ -5,11 +5,14 @@
 package inscricao.persistence.entity;
 
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
@@ -17,6 +20,8 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "cliente_periodo")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQueries({
     @NamedQuery(name = "ClientePeriodo.findAll", query = "SELECT c FROM ClientePeriodo c")})
 public class ClientePeriodo implements Serializable {
@@ -0,0 +1,183 @@
+package inscricao.web;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.JSON;
+import inscricao.faces.mngbeans.IdiomaCatalogoBean;
+import inscricao.persistence.entity.Idioma;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Exporta todos os candidatos, em CSV (RFC 4180, padrão) ou NDJSON (um
+ * objeto JSON por linha), conforme o parâmetro <code>formato</code>
+ * (<code>csv</code> ou <code>ndjson</code>).
+ * <p>
+ * As linhas são lidas por um cursor e escritas diretamente na resposta, sem
+ * montar a lista de candidatos: a memória usada não depende do número de
+ * candidatos e o cabeçalho é enviado antes da primeira linha ser lida. A
+ * descrição do idioma vem do catálogo em memória ({@link IdiomaCatalogoBean}),
+ * sem junção na consulta.
+ * <p>
+ * Se a leitura falhar depois do início da resposta, a conexão é encerrada
+ * sem completar o arquivo.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class ExportacaoServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final int TAMANHO_BUFFER = 16 * 1024;
+    private static final DateTimeFormatter FORMATO_DATAHORA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final ZoneId FUSO = ZoneId.of("America/Sao_Paulo");
+
+    /** Posições das colunas em {@link CandidatoJpaController#COLUNAS}. */
+    private static final int CPF = 0;
+    private static final int CEP = 9;
+    private static final int IDIOMA = 13;
+    private static final int DATAHORA = 15;
+    /** A posição da data e hora na saída, após a descrição do idioma. */
+    private static final int DATAHORA_SAIDA = DATAHORA + 1;
+
+    private static final String[] COLUNAS_SAIDA;
+    static {
+        String[] c = CandidatoJpaController.COLUNAS;
+        COLUNAS_SAIDA = new String[c.length + 1];
+        System.arraycopy(c, 0, COLUNAS_SAIDA, 0, IDIOMA + 1);
+        COLUNAS_SAIDA[IDIOMA + 1] = "idioma_descricao";
+        System.arraycopy(c, IDIOMA + 1, COLUNAS_SAIDA, IDIOMA + 2, c.length - IDIOMA - 1);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String formato = req.getParameter("formato");
+        final boolean json;
+        if (formato == null || formato.equals("csv")) {
+            json = false;
+            resp.setContentType("text/csv; charset=UTF-8");
+            resp.setHeader("Content-Disposition", "attachment; filename=\"candidatos.csv\"");
+        } else if (formato.equals("ndjson")) {
+            json = true;
+            resp.setContentType("application/x-ndjson; charset=UTF-8");
+            resp.setHeader("Content-Disposition", "attachment; filename=\"candidatos.ndjson\"");
+        } else {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Formato desconhecido: " + formato);
+            return;
+        }
+        final IdiomaCatalogoBean idiomas = (IdiomaCatalogoBean) getServletContext().getAttribute("idiomaCatalogo");
+        final Writer out = new BufferedWriter(
+                new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        if (!json) {
+            for (int i = 0; i < COLUNAS_SAIDA.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(COLUNAS_SAIDA[i]);
+            }
+            out.write("\r\n");
+        }
+        // envia o cabeçalho antes de executar a consulta
+        out.flush();
+        resp.flushBuffer();
+
+        final Object[] saida = new Object[COLUNAS_SAIDA.length];
+        final StringBuilder tmp = new StringBuilder(32);
+        try {
+            int n = new CandidatoJpaController().percorreCandidatos(colunas -> {
+                System.arraycopy(colunas, 0, saida, 0, IDIOMA + 1);
+                saida[IDIOMA + 1] = descricao(idiomas, (Integer) colunas[IDIOMA]);
+                System.arraycopy(colunas, IDIOMA + 1, saida, IDIOMA + 2, colunas.length - IDIOMA - 1);
+                if (json) escreveJSON(out, saida, tmp);
+                else escreveCSV(out, saida, tmp);
+            });
+            out.flush();
+            log(String.format("%d candidatos exportados (%s)", n, json ? "ndjson" : "csv"));
+        } catch (IOException | RuntimeException e) {
+            // a resposta já foi iniciada; o cliente percebe o arquivo incompleto
+            log("Exportação de candidatos interrompida", e);
+            throw new ServletException(e);
+        }
+    }
+
+    private static String descricao(IdiomaCatalogoBean idiomas, Integer codigo) {
+        Idioma idioma = idiomas != null && codigo != null ? idiomas.getIdioma(codigo) : null;
+        return idioma != null ? idioma.getDescricao() : null;
+    }
+
+    /**
+     * Converte um valor da linha de saída para texto: CPF com 11 dígitos,
+     * CEP com 8 e data e hora em ISO 8601, no horário de Brasília.
+     */
+    private static String texto(int coluna, Object valor, StringBuilder tmp) {
+        if (valor == null) return null;
+        switch (coluna) {
+            case CPF:
+                return zeros(valor.toString(), 11, tmp);
+            case CEP:
+                return zeros(valor.toString(), 8, tmp);
+            case DATAHORA_SAIDA:
+                return FORMATO_DATAHORA.format(LocalDateTime.ofInstant(((Date) valor).toInstant(), FUSO));
+            default:
+                return valor.toString();
+        }
+    }
+
+    private static String zeros(String s, int digitos, StringBuilder tmp) {
+        if (s.length() >= digitos) return s;
+        tmp.setLength(0);
+        for (int i = s.length(); i < digitos; i++) tmp.append('0');
+        return tmp.append(s).toString();
+    }
+
+    private static void escreveCSV(Writer out, Object[] valores, StringBuilder tmp) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) out.write(',');
+            String s = texto(i, valores[i], tmp);
+            if (s == null) continue;
+            boolean aspas = false;
+            for (int k = 0; k < s.length() && !aspas; k++) {
+                char c = s.charAt(k);
+                aspas = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!aspas) {
+                out.write(s);
+                continue;
+            }
+            out.write('"');
+            for (int k = 0; k < s.length(); k++) {
+                char c = s.charAt(k);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        }
+        out.write("\r\n");
+    }
+
+    private static void escreveJSON(Writer out, Object[] valores, StringBuilder tmp) throws IOException {
+        out.write('{');
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) out.write(',');
+            out.write('"');
+            out.write(COLUNAS_SAIDA[i]);
+            out.write("\":");
+            Object v = valores[i];
+            if (v == null) {
+                out.write("null");
+            } else if (v instanceof Number && i != CPF && i != CEP) {
+                out.write(v.toString());
+            } else {
+                JSON.escreveTexto(out, texto(i, v, tmp));
+            }
+        }
+        out.write("}\n");
+    }
+}
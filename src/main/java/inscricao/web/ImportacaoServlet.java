@@ -0,0 +1,127 @@
+package inscricao.web;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.persistence.controller.IdiomaJpaController;
+import inscricao.faces.mngbeans.CPFsInscritosBean;
+import inscricao.faces.mngbeans.ContagemCandidatosBean;
+import inscricao.faces.mngbeans.FilaInscricaoBean;
+import inscricao.faces.mngbeans.IndiceCEPBean;
+import inscricao.faces.mngbeans.MunicipiosBean;
+import inscricao.faces.mngbeans.ReferenciaGRUBean;
+import inscricao.persistence.FilaInscricao;
+import inscricao.persistence.ImportacaoCandidatos;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+
+/**
+ * Importa candidatos de um CSV enviado por POST, no campo
+ * <code>arquivo</code> de um formulário <code>multipart/form-data</code>
+ * (ver admin/importacao.html) ou como corpo da requisição
+ * (<code>text/csv</code>). A codificação é a da requisição ou, se não
+ * informada, UTF-8.
+ * <p>
+ * CPFs inscritos ou com a inscrição pendente na {@link FilaInscricao} são
+ * rejeitados.
+ * <p>
+ * A resposta é um relatório em texto com uma linha para cada linha rejeitada,
+ * enviado à medida que os lotes são gravados, seguido dos totais.
+ *
+ * @author Vitor Yudi Hansen
+ * @see ImportacaoCandidatos
+ */
+public class ImportacaoServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private transient ExecutorService executor;
+
+    @Override
+    public void init() throws ServletException {
+        final AtomicInteger n = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "importacao-validacao-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String tipo = req.getContentType();
+        InputStream dados;
+        if (tipo != null && tipo.startsWith("multipart/")) {
+            Part arquivo = req.getPart("arquivo");
+            if (arquivo == null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Campo 'arquivo' não enviado");
+                return;
+            }
+            dados = arquivo.getInputStream();
+        } else {
+            dados = req.getInputStream();
+        }
+        Charset charset = req.getCharacterEncoding() != null
+                ? Charset.forName(req.getCharacterEncoding()) : StandardCharsets.UTF_8;
+
+        ServletContext ctx = getServletContext();
+        MunicipiosBean municipios = (MunicipiosBean) ctx.getAttribute("municipios");
+        IndiceCEPBean indiceCEP = (IndiceCEPBean) ctx.getAttribute("indiceCEP");
+        CPFsInscritosBean inscritos = (CPFsInscritosBean) ctx.getAttribute("cpfsInscritos");
+        ReferenciaGRUBean referencias = (ReferenciaGRUBean) ctx.getAttribute("referenciaGRU");
+        if (municipios == null || indiceCEP == null || inscritos == null || referencias == null) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Aplicação ainda não inicializada");
+            return;
+        }
+
+        FilaInscricaoBean filaBean = (FilaInscricaoBean) ctx.getAttribute("filaInscricao");
+        final FilaInscricao fila = filaBean == null ? null : filaBean.getFila();
+
+        ImportacaoCandidatos importacao = new ImportacaoCandidatos(new CandidatoJpaController(), executor,
+                municipios.getTabela(), indiceCEP.getIndice(),
+                ImportacaoCandidatos.mapaIdiomas(new IdiomaJpaController().findAll()),
+                cpf -> inscritos.isInscrito(cpf) || (fila != null && fila.getPendente(cpf) != null),
+                inscritos::registra, referencias::proxima);
+
+        resp.setContentType("text/plain; charset=UTF-8");
+        final PrintWriter out = resp.getWriter();
+        long inicio = System.nanoTime();
+        try (Reader csv = new InputStreamReader(dados, charset)) {
+            ImportacaoCandidatos.Resultado r = importacao.importa(csv, (linha, mensagem) -> {
+                out.print("Linha ");
+                out.print(linha);
+                out.print(": ");
+                out.println(mensagem);
+            });
+            long ms = (System.nanoTime() - inicio) / 1000000;
+            out.println(String.format("%d linhas lidas, %d importadas, %d rejeitadas em %d ms",
+                    r.getLidas(), r.getImportadas(), r.getRejeitadas(), ms));
+            log(String.format("Importação: %d linhas lidas, %d importadas em %d ms", r.getLidas(), r.getImportadas(), ms));
+        } catch (IllegalArgumentException e) {
+            out.println("Arquivo inválido: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log("Falha na importação de candidatos", e);
+            out.println("Importação interrompida: " + e.getMessage());
+            out.println("Os lotes anteriores ao erro foram gravados.");
+        } finally {
+            ContagemCandidatosBean contagem = (ContagemCandidatosBean) ctx.getAttribute("contagemCandidatos");
+            if (contagem != null) contagem.invalida();
+        }
+    }
+}
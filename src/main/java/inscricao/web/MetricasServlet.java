@@ -0,0 +1,72 @@
+package inscricao.web;
+
+import exemplo.util.JSON;
+import inscricao.faces.mngbeans.MetricasBean;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Envia em JSON as métricas de execução da aplicação (ver
+ * {@link MetricasBean#getResumo()}), para consulta por ferramentas de
+ * monitoração. As mesmas métricas estão disponíveis via JMX.
+ *
+ * @author Vitor Yudi Hansen
+ * @see MetricasBean
+ */
+public class MetricasServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        MetricasBean metricas = (MetricasBean) getServletContext().getAttribute("metricas");
+        if (metricas == null) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Aplicação ainda não inicializada");
+            return;
+        }
+        Map<String, Object> resumo = metricas.getResumo();
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        Writer out = resp.getWriter();
+        escreve(out, resumo);
+        out.write('\n');
+    }
+
+    private static void escreve(Writer out, Object v) throws IOException {
+        if (v == null) {
+            out.write("null");
+        } else if (v instanceof Map) {
+            out.write('{');
+            boolean primeiro = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) v).entrySet()) {
+                if (!primeiro) out.write(',');
+                primeiro = false;
+                JSON.escreveTexto(out, e.getKey().toString());
+                out.write(':');
+                escreve(out, e.getValue());
+            }
+            out.write('}');
+        } else if (v instanceof Collection) {
+            out.write('[');
+            boolean primeiro = true;
+            for (Object o : (Collection<?>) v) {
+                if (!primeiro) out.write(',');
+                primeiro = false;
+                escreve(out, o);
+            }
+            out.write(']');
+        } else if (v instanceof Double || v instanceof Float) {
+            double d = ((Number) v).doubleValue();
+            out.write(Double.isNaN(d) || Double.isInfinite(d) ? "null" : Double.toString(d));
+        } else if (v instanceof Number || v instanceof Boolean) {
+            out.write(v.toString());
+        } else {
+            JSON.escreveTexto(out, v.toString());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package exemplo.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Testes do {@link Diario}: releitura após queda e truncamento após as
+ * confirmações.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class DiarioTest {
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private File arquivo;
+
+    @Before
+    public void criaArquivo() {
+        arquivo = new File(pasta.getRoot(), "diario.log");
+    }
+
+    private static byte[] registro(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> registros() throws IOException {
+        final List<String> lidos = new ArrayList<String>();
+        Diario d = new Diario(arquivo.toPath());
+        try {
+            d.percorre(dados -> lidos.add(new String(dados, StandardCharsets.UTF_8)));
+        } finally {
+            d.close();
+        }
+        return lidos;
+    }
+
+    private void grava(String... valores) throws IOException {
+        Diario d = new Diario(arquivo.toPath());
+        try {
+            for (String v : valores) d.grava(registro(v));
+        } finally {
+            d.close();
+        }
+    }
+
+    @Test
+    public void releRegistrosNaOrdem() throws IOException {
+        grava("um", "dois", "três");
+        List<String> lidos = registros();
+        assertEquals(3, lidos.size());
+        assertArrayEquals(new Object[] {"um", "dois", "três"}, lidos.toArray());
+    }
+
+    @Test
+    public void descartaRegistroFinalIncompleto() throws IOException {
+        grava("um", "dois");
+        long integro = arquivo.length();
+        // queda no meio da gravação: cabeçalho completo, dados pela metade
+        try (RandomAccessFile f = new RandomAccessFile(arquivo, "rw")) {
+            f.seek(integro);
+            f.writeInt(100);
+            f.writeInt(12345);
+            f.write(new byte[40]);
+        }
+        assertArrayEquals(new Object[] {"um", "dois"}, registros().toArray());
+        assertEquals(integro, arquivo.length());
+
+        // novas gravações continuam após o último registro íntegro
+        grava("três");
+        assertArrayEquals(new Object[] {"um", "dois", "três"}, registros().toArray());
+    }
+
+    @Test
+    public void descartaRegistroFinalCorrompido() throws IOException {
+        grava("um", "dois");
+        try (RandomAccessFile f = new RandomAccessFile(arquivo, "rw")) {
+            f.seek(arquivo.length() - 1);
+            f.write('X');
+        }
+        assertArrayEquals(new Object[] {"um"}, registros().toArray());
+    }
+
+    @Test
+    public void descartaCabecalhoIncompleto() throws IOException {
+        grava("um");
+        try (RandomAccessFile f = new RandomAccessFile(arquivo, "rw")) {
+            f.seek(arquivo.length());
+            f.write(new byte[] {0, 0, 0});
+        }
+        assertArrayEquals(new Object[] {"um"}, registros().toArray());
+    }
+
+    @Test
+    public void truncaQuandoTodosConfirmados() throws IOException {
+        Diario d = new Diario(arquivo.toPath());
+        try {
+            d.grava(registro("um"));
+            d.grava(registro("dois"));
+            d.grava(registro("três"));
+            d.confirma(2);
+            assertTrue(arquivo.length() > 0);
+            d.confirma(1);
+            assertEquals(0, arquivo.length());
+
+            d.grava(registro("quatro"));
+        } finally {
+            d.close();
+        }
+        assertArrayEquals(new Object[] {"quatro"}, registros().toArray());
+    }
+
+    @Test
+    public void registrosRelidosContamComoPendentes() throws IOException {
+        grava("um", "dois");
+        Diario d = new Diario(arquivo.toPath());
+        try {
+            d.grava(registro("três"));
+            d.confirma(2);
+            assertTrue(arquivo.length() > 0);
+            d.confirma(1);
+            assertEquals(0, arquivo.length());
+        } finally {
+            d.close();
+        }
+    }
+}
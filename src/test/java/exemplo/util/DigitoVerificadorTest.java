@@ -0,0 +1,63 @@
+package exemplo.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Testes das classes de dígito verificador.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class DigitoVerificadorTest {
+
+    @Test
+    public void concatenaODVAoValorString() {
+        assertEquals("12344", new DVModulo10("1234").getValorString(true));
+        assertEquals("2615339", new DVModulo11("261533").getValorString(true));
+        assertEquals("12345678909", new DigitoVerificadorCPF("123456789").getValorString(true));
+        assertEquals("11222333000181", new DigitoVerificadorCNPJ("112223330001").getValorString(true));
+        assertEquals("123456789", new DigitoVerificadorCPF("123456789").getValorString(false));
+    }
+
+    @Test
+    public void preservaZerosDoDV() {
+        // os dois dígitos do DV são completados com zeros à esquerda
+        DigitoVerificadorCPF cpf = new DigitoVerificadorCPF("000000001");
+        String s = cpf.getValorString(true);
+        assertEquals(11, s.length());
+        assertEquals(cpf.getValorLong(true), Long.parseLong(s));
+    }
+
+    /** Módulo 10 com todos os pesos iguais a 1. */
+    private static class DVModulo10PesoUm extends DVModulo10 {
+        DVModulo10PesoUm(String valor) {
+            super(valor);
+        }
+
+        @Override
+        protected int getPesoAt(int pos) {
+            return 1;
+        }
+    }
+
+    /** CPF com DV fixo. */
+    private static class CPFFixo extends DigitoVerificadorCPF {
+        CPFFixo(String valor) {
+            super(valor);
+        }
+
+        @Override
+        protected int calculaDV() {
+            return 42;
+        }
+    }
+
+    @Test
+    public void derivadasUsamOsMetodosRedefinidos() {
+        assertEquals(4, new DVModulo10("1234").getDigito());
+        // somatório 1 + 2 + 3 + 4 = 10, múltiplo de 10: DV 0
+        assertEquals(0, new DVModulo10PesoUm("1234").getDigito());
+        assertEquals(42, new CPFFixo("123456789").getDigito());
+    }
+}
@@ -0,0 +1,112 @@
+package exemplo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Testes da {@link MunicipiosIBGE}: construção do hash perfeito sobre a
+ * lista embutida e sobre uma lista do tamanho da DTB, e normalização dos nomes.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class MunicipiosIBGETest {
+
+    private static final String ARQUIVO = "/inscricao/config/municipios.txt";
+
+    private static final String[] UFS = {
+        "RO", "AC", "AM", "RR", "PA", "AP", "TO", "MA", "PI", "CE", "RN", "PB", "PE", "AL",
+        "SE", "BA", "MG", "ES", "RJ", "SP", "PR", "SC", "RS", "MS", "MT", "GO", "DF"
+    };
+    private static final int[] CODIGOS_UF = {
+        11, 12, 13, 14, 15, 16, 17, 21, 22, 23, 24, 25, 26, 27,
+        28, 29, 31, 32, 33, 35, 41, 42, 43, 50, 51, 52, 53
+    };
+
+    private static MunicipiosIBGE embutida;
+
+    @BeforeClass
+    public static void carregaEmbutida() throws IOException {
+        try (InputStream in = MunicipiosIBGETest.class.getResourceAsStream(ARQUIVO)) {
+            assertNotNull("Arquivo de municípios ausente", in);
+            embutida = MunicipiosIBGE.carrega(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void resolveTodosOsMunicipiosEmbutidos() {
+        assertTrue(embutida.getNumMunicipios() > 0);
+        for (int i = 0; i < embutida.getNumMunicipios(); i++) {
+            String uf = embutida.getUF(i);
+            String nome = embutida.getNome(i);
+            assertEquals(nome + "/" + uf, i, embutida.indice(uf, nome));
+            assertEquals(i, embutida.indice(uf.toLowerCase(), nome.toUpperCase()));
+            assertEquals(nome, embutida.canonicaCidade(uf, nome));
+            assertTrue(embutida.isValido(uf, nome));
+        }
+    }
+
+    @Test
+    public void ufsEmbutidasSaoCompletas() {
+        assertEquals(52, embutida.getNumMunicipios("RO"));
+        assertEquals(22, embutida.getNumMunicipios("AC"));
+        assertEquals(15, embutida.getNumMunicipios("RR"));
+        assertEquals(16, embutida.getNumMunicipios("AP"));
+        assertEquals(1, embutida.getNumMunicipios("DF"));
+    }
+
+    @Test
+    public void validaCidadeSomenteNasUFsCarregadas() {
+        assertFalse(embutida.isValido("RO", "Curitiba"));
+        assertTrue(embutida.isValido("PR", "Curitiba"));
+        assertFalse(embutida.isValido("XX", "Curitiba"));
+        assertFalse(embutida.getUFsSemMunicipios().contains("RO"));
+        assertTrue(embutida.getUFsSemMunicipios().contains("PR"));
+    }
+
+    @Test
+    public void equiparaGrafias() {
+        String oficial = embutida.canonicaCidade("RO", "Alta Floresta D'Oeste");
+        assertNotNull(oficial);
+        assertEquals(oficial, embutida.canonicaCidade("ro", "alta floresta doeste"));
+        assertEquals(oficial, embutida.canonicaCidade("RO", "Alta  Floresta D’Oeste"));
+        assertEquals(oficial, embutida.canonicaCidade("RO", "ALTA-FLORESTA D‘OESTE"));
+        assertEquals("Guajará-Mirim", embutida.canonicaCidade("RO", "guajara mirim"));
+        assertNull(embutida.canonicaCidade("RO", "Alta Floresta"));
+    }
+
+    @Test
+    public void constroiOHashComOTamanhoDaDTB() throws IOException {
+        // 5.570 nomes sintéticos distribuídos pelas UFs, como na DTB
+        StringBuilder arquivo = new StringBuilder();
+        int[] porUF = new int[UFS.length];
+        for (int i = 0; i < 5570; i++) {
+            int uf = i % UFS.length;
+            porUF[uf]++;
+            arquivo.append(CODIGOS_UF[uf] * 100000 + porUF[uf]).append(';').append(UFS[uf])
+                    .append(";São Município ").append(i).append(" d'Oeste\n");
+        }
+        MunicipiosIBGE tabela = MunicipiosIBGE.carrega(new StringReader(arquivo.toString()));
+        assertEquals(5570, tabela.getNumMunicipios());
+        for (int i = 0; i < tabela.getNumMunicipios(); i++)
+            assertEquals(i, tabela.indice(tabela.getUF(i), tabela.getNome(i)));
+        assertEquals(-1, tabela.indice("SP", "Sao Municipio 5570 d'Oeste"));
+        assertEquals(Arrays.asList(), tabela.getUFsSemMunicipios());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recusaMunicipioRepetido() throws IOException {
+        MunicipiosIBGE.carrega(new StringReader("1100015;RO;Alta Floresta D'Oeste\n1100016;RO;Alta Floresta D’Oeste\n"));
+    }
+}
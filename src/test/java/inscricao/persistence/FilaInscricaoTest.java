@@ -0,0 +1,211 @@
+package inscricao.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import exemplo.persistence.controller.CandidatoJpaController;
+import exemplo.util.Diario;
+import inscricao.persistence.entity.Candidato;
+import inscricao.persistence.entity.Idioma;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Testes da {@link FilaInscricao} com um controlador em memória: gravação,
+ * truncamento do diário e isolamento de registros inválidos.
+ *
+ * @author Vitor Yudi Hansen
+ */
+public class FilaInscricaoTest {
+
+    private static final long ESPERA = 30000;
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private File arquivo;
+    private Controlador controlador;
+    private final Set<Long> confirmados = Collections.synchronizedSet(new TreeSet<Long>());
+    private FilaInscricao fila;
+
+    /**
+     * Grava em memória; lotes com mais de um candidato e CPFs configurados
+     * podem falhar.
+     */
+    private static class Controlador extends CandidatoJpaController {
+        final Set<Long> gravados = Collections.synchronizedSet(new TreeSet<Long>());
+        final Map<Long, Date> datas = new ConcurrentHashMap<Long, Date>();
+        final Set<Long> invalidos = Collections.synchronizedSet(new HashSet<Long>());
+        final Set<Long> indisponivelUmaVez = Collections.synchronizedSet(new HashSet<Long>());
+        volatile boolean loteIndisponivel;
+        volatile boolean bancoIndisponivel;
+
+        @Override
+        public int persisteNovos(List<Candidato> candidatos) {
+            if (bancoIndisponivel) throw indisponivel();
+            if (loteIndisponivel && candidatos.size() > 1) throw indisponivel();
+            for (Candidato c : candidatos) {
+                if (invalidos.contains(c.getCpf()))
+                    throw new RuntimeException(new SQLException("violação de restrição", "23505"));
+                if (indisponivelUmaVez.remove(c.getCpf())) throw indisponivel();
+            }
+            for (Candidato c : candidatos) {
+                gravados.add(c.getCpf());
+                datas.put(c.getCpf(), c.getDataHora());
+            }
+            return candidatos.size();
+        }
+
+        private static RuntimeException indisponivel() {
+            return new RuntimeException(new SQLException("conexão perdida", "08006"));
+        }
+    }
+
+    @Before
+    public void inicializa() {
+        arquivo = new File(pasta.getRoot(), "inscricoes.log");
+        controlador = new Controlador();
+    }
+
+    @After
+    public void finaliza() throws IOException {
+        if (fila != null) fila.close();
+    }
+
+    private static Candidato candidato(long cpf) {
+        Candidato c = new Candidato(cpf, "rg" + cpf, "Nome " + cpf, "UTFPR", "PPGI", "Rua A", "Curitiba", "PR",
+                cpf + "@exemplo.com");
+        c.setIdioma(new Idioma(1));
+        c.setReferencia(1000 + cpf);
+        return c;
+    }
+
+    /** Grava os candidatos no diário, como se a aplicação tivesse caído antes de gravá-los no banco. */
+    private void preparaDiario(long... cpfs) throws IOException {
+        Diario d = new Diario(arquivo.toPath());
+        try {
+            for (long cpf : cpfs) d.grava(FilaInscricao.codifica(candidato(cpf)));
+        } finally {
+            d.close();
+        }
+    }
+
+    private static void aguarda(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA;
+        while (!condicao.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) throw new AssertionError("Tempo esgotado");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void gravaETruncaODiario() throws Exception {
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+        Candidato c = candidato(1);
+        assertTrue(fila.enfileira(c));
+        assertTrue(fila.enfileira(candidato(2)));
+
+        aguarda(() -> fila.getTamanho() == 0);
+        assertEquals(new TreeSet<Long>(Arrays.asList(1L, 2L)), controlador.gravados);
+        assertEquals(controlador.gravados, confirmados);
+        assertEquals(0, arquivo.length());
+    }
+
+    @Test
+    public void enfileiraUmaCopia() throws Exception {
+        controlador.bancoIndisponivel = true;
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+        Candidato c = candidato(1);
+        assertTrue(fila.enfileira(c));
+        assertFalse(fila.enfileira(candidato(1)));
+        c.setNome("Alterado depois");
+
+        Candidato pendente = fila.getPendente(1L);
+        assertNotSame(c, pendente);
+        assertEquals("Nome 1", pendente.getNome());
+
+        controlador.bancoIndisponivel = false;
+        aguarda(() -> fila.getTamanho() == 0);
+        assertEquals(Collections.singleton(1L), controlador.gravados);
+    }
+
+    @Test
+    public void gravaADataHoraDoEnfileiramento() throws Exception {
+        controlador.bancoIndisponivel = true;
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+        long antes = System.currentTimeMillis();
+        assertTrue(fila.enfileira(candidato(1)));
+        long depois = System.currentTimeMillis();
+        Thread.sleep(200);
+
+        controlador.bancoIndisponivel = false;
+        aguarda(() -> fila.getTamanho() == 0);
+        long dataHora = controlador.datas.get(1L).getTime();
+        assertTrue(dataHora >= antes && dataHora <= depois);
+    }
+
+    @Test
+    public void recuperaODiarioNaAbertura() throws Exception {
+        preparaDiario(1, 2, 3);
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+        aguarda(() -> fila.getTamanho() == 0);
+        assertEquals(new TreeSet<Long>(Arrays.asList(1L, 2L, 3L)), controlador.gravados);
+        assertEquals(0, arquivo.length());
+    }
+
+    @Test
+    public void isolaSomenteErrosDeDados() throws Exception {
+        // o lote inteiro falha; gravados um a um, o 3 é inválido e o 4
+        // encontra o banco indisponível: só o 3 pode ser descartado
+        controlador.loteIndisponivel = true;
+        controlador.invalidos.add(3L);
+        controlador.indisponivelUmaVez.add(4L);
+        preparaDiario(1, 2, 3, 4, 5);
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+
+        aguarda(() -> fila.getTamanho() == 0);
+        assertEquals(new TreeSet<Long>(Arrays.asList(1L, 2L, 4L, 5L)), controlador.gravados);
+        assertEquals(controlador.gravados, confirmados);
+        assertEquals(0, arquivo.length());
+    }
+
+    @Test
+    public void mantemOLoteComOBancoIndisponivel() throws Exception {
+        controlador.loteIndisponivel = true;
+        controlador.indisponivelUmaVez.addAll(Arrays.asList(1L, 2L));
+        preparaDiario(1, 2);
+        fila = new FilaInscricao(arquivo.toPath(), controlador, confirmados::add);
+
+        aguarda(() -> fila.getTamanho() == 0);
+        assertEquals(new TreeSet<Long>(Arrays.asList(1L, 2L)), controlador.gravados);
+    }
+
+    @Test
+    public void classificaErrosDeDados() {
+        assertTrue(FilaInscricao.isErroDados(new RuntimeException(new SQLException("x", "23505"))));
+        assertTrue(FilaInscricao.isErroDados(new SQLException("x", "22001")));
+        SQLException lote = new SQLException("lote", "XX000");
+        lote.setNextException(new SQLException("x", "23502"));
+        assertTrue(FilaInscricao.isErroDados(lote));
+        assertFalse(FilaInscricao.isErroDados(new RuntimeException(new SQLException("x", "08006"))));
+        assertFalse(FilaInscricao.isErroDados(new IllegalStateException()));
+    }
+}